@@ -18,10 +18,13 @@ package com.pranavpandey.smallapp;
 
 import java.util.ArrayList;
 
+import com.pranavpandey.smallapp.database.Associations;
+import com.pranavpandey.smallapp.dialog.OpenIntentDialog;
 import com.pranavpandey.smallapp.permission.PermissionDangerous;
 import com.pranavpandey.smallapp.permission.PermissionSelectExternalStorage;
 import com.pranavpandey.smallapp.permission.PermissionWriteSystemSettings;
 import com.pranavpandey.smallapp.theme.SmallTheme;
+import com.pranavpandey.smallapp.view.ViewPool;
 import com.sony.smallapp.SmallAppWindow;
 import com.sony.smallapp.SmallApplication;
 
@@ -32,6 +35,8 @@ import android.content.pm.ActivityInfo;
 import android.content.pm.PackageManager;
 import android.content.res.Configuration;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.provider.Settings;
 import android.support.annotation.LayoutRes;
 import android.support.v4.content.ContextCompat;
@@ -71,6 +76,7 @@ public abstract class SmallApp extends SmallApplication {
 
         mContext = getApplicationContext();
         SmallTheme.initializeInstance(getContext());
+        Associations.openConnection(getContext());
         mConfig = new Configuration(getResources().getConfiguration());
 
         // Request runtime permissions if available.
@@ -106,6 +112,15 @@ public abstract class SmallApp extends SmallApplication {
             View layoutView = LayoutInflater.from(SmallApp.this).inflate(getLayoutId(), null);
             mRootView.addView(layoutView);
         }
+
+        // Prepare the open intent dialog once the app becomes idle.
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                OpenIntentDialog.prewarm(SmallApp.this, getPrewarmIntents());
+                return false;
+            }
+        });
     }
 
     private void openDelayedActivity(final Intent intent) {
@@ -167,6 +182,8 @@ public abstract class SmallApp extends SmallApplication {
         super.onDestroy();
 
         SmallTheme.getInstance().onDestroy();
+        Associations.closeConnection();
+        ViewPool.getInstance().clear(this);
     }
 
     /**
@@ -183,6 +200,23 @@ public abstract class SmallApp extends SmallApplication {
         return mRootView;
     }
 
+    /**
+     * Override this function in the extended class to provide the intents
+     * which will be resolved in advance when the app becomes idle. By
+     * default, nothing will be resolved and only the layouts and caches
+     * will be prepared. Results are cached by the type, scheme and host
+     * of an intent so, supply the intents with the same data which will
+     * be opened later, e.g. the links to a known host.
+     *
+     * @return The intents to be resolved in advance or <code>null</code>
+     * to skip resolving.
+     *
+     * @see OpenIntentDialog#prewarm(Context, Intent...)
+     */
+    protected Intent[] getPrewarmIntents() {
+        return null;
+    }
+
     protected String[] getPermissions() {
         return null;
     }
@@ -16,17 +16,29 @@
 
 package com.pranavpandey.smallapp.adapter;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 
 import com.pranavpandey.smallapp.R;
+import com.pranavpandey.smallapp.dialog.ActionDialog.IncrementalAdapter;
+import com.pranavpandey.smallapp.dialog.ActionDialog.OnItemRangeChangedListener;
+import com.pranavpandey.smallapp.dialog.ActionDialog.SearchableAdapter;
 import com.pranavpandey.smallapp.model.BaseActionItem;
+import com.pranavpandey.smallapp.theme.DynamicTheme;
 import com.pranavpandey.smallapp.theme.SmallTheme;
 import com.pranavpandey.smallapp.theme.SmallTheme.ColorType;
 import com.pranavpandey.smallapp.view.ColoredImageView;
 import com.pranavpandey.smallapp.view.ColoredTextView;
+import com.pranavpandey.smallapp.view.ViewPool;
 
 import android.content.Context;
 import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -37,16 +49,14 @@ import android.widget.ArrayAdapter;
  * ArrayAdapter and the list must contain {@link com.pranavpandey.smallapp.model.BaseActionItem}.
  * You can modify this class according to your item.
  *
+ * <p>Use {@link #setItems(List)} to update the action items so that only the
+ * changed rows will be bound again.</p>
+ *
  * @see com.pranavpandey.smallapp.dialog.ActionDialog.Type
  * @see android.widget.ArrayAdapter
  */
-public class BaseActionItemAdapter extends ArrayAdapter<BaseActionItem> {
-
-    /**
-     * List with {@link com.pranavpandey.smallapp.model.BaseActionItem} to
-     * show them in the adapter.
-     */
-    private List<BaseActionItem> actionsList;
+public class BaseActionItemAdapter extends ArrayAdapter<BaseActionItem>
+        implements SearchableAdapter, IncrementalAdapter {
 
     /**
      * Context to retrieve resources.
@@ -63,34 +73,219 @@ public class BaseActionItemAdapter extends ArrayAdapter<BaseActionItem> {
      */
     private @LayoutRes int mLayoutId;
 
+    /**
+     * Action items displayed by this adapter. It will be the list supplied
+     * to the constructor until it is replaced by {@link #setItems(List)}.
+     */
+    private List<BaseActionItem> mItems;
+
+    /**
+     * <code>true</code> to notify the changes made by the ArrayAdapter
+     * methods automatically.
+     */
+    private boolean mNotifyOnChange = true;
+
+    /**
+     * Index to search the action items by their names. It will be built
+     * on the first search.
+     */
+    private SearchIndex<BaseActionItem> mSearchIndex;
+
+    /**
+     * Action items matched by the current search query or <code>null</code>
+     * to display all the action items.
+     */
+    private List<BaseActionItem> mSearchResults;
+
+    /**
+     * Current search query in lower case to highlight the names.
+     */
+    private String mQuery;
+
+    /**
+     * Copies of the action items as they have been displayed to find the
+     * changed items on the next update.
+     */
+    private List<BaseActionItem> mSnapshot;
+
+    /**
+     * Listener used to dispatch the action items changed in place.
+     */
+    private @Nullable OnItemRangeChangedListener mItemRangeChangedListener;
+
     /**
      * Constructor using context, list of actions, and layout id to create
      * {@link BaseActionItemAdapter}. It will work with both <code>LIST</code>
-     * and <code>GRID</code> types.
+     * and <code>GRID</code> types. Supplied list will be displayed directly
+     * so, it can be modified followed by <code>notifyDataSetChanged()</code>.
      *
      * @see com.pranavpandey.smallapp.dialog.ActionDialog.Type
      */
     public BaseActionItemAdapter(Context context, List<BaseActionItem> list,
                                  @LayoutRes int layoutId) {
         super(context, 0, list);
+        this.mItems = list;
         this.mContext = context;
-        this.actionsList = list;
         this.mLayoutId = layoutId;
         this.mLayoutInflator = LayoutInflater.from(getContext());
+        this.mSnapshot = copyItems();
+    }
+
+    /**
+     * Replace the action items of this adapter. Items will be matched by
+     * their action id and if only the displayed values have been changed
+     * then, only the changed rows will be bound again. Any added, removed
+     * or moved item will update the whole list.
+     *
+     * <p>Supplied items will be copied into a list owned by this adapter
+     * so, the list supplied to the constructor or to this method will not
+     * be displayed or modified anymore. Items can also be modified in
+     * place and supplied again as the changes will be found from the
+     * previously displayed values.</p>
+     *
+     * @param items The new action items.
+     *
+     * @see BaseActionItem#isContentSame(BaseActionItem)
+     */
+    public void setItems(@NonNull List<BaseActionItem> items) {
+        List<BaseActionItem> newItems = new ArrayList<BaseActionItem>(items);
+        boolean structural = newItems.size() != mSnapshot.size();
+        for (int i = 0; !structural && i < newItems.size(); i++) {
+            structural = newItems.get(i).getActionId() != mSnapshot.get(i).getActionId();
+        }
+
+        // Changes will be notified according to the diff.
+        mItems = newItems;
+
+        if (structural || mQuery != null) {
+            // Positions have been changed so, find the matches again.
+            mSearchIndex = null;
+            if (mQuery != null) {
+                search(mQuery);
+            } else {
+                notifyDataSetChanged();
+            }
+            return;
+        }
+
+        int start = -1;
+        for (int i = 0; i <= newItems.size(); i++) {
+            if (i < newItems.size() && !newItems.get(i).isContentSame(mSnapshot.get(i))) {
+                mSnapshot.set(i, new BaseActionItem(newItems.get(i)));
+                if (start == -1) {
+                    start = i;
+                }
+            } else if (start != -1) {
+                // Name may have been changed so, build the index again.
+                mSearchIndex = null;
+
+                if (mItemRangeChangedListener == null) {
+                    notifyDataSetChanged();
+                    return;
+                }
+
+                mItemRangeChangedListener.onItemRangeChanged(start, i - start);
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Create copies of all the action items to compare them later.
+     *
+     * @return List of the copied action items.
+     */
+    private List<BaseActionItem> copyItems() {
+        List<BaseActionItem> copies = new ArrayList<BaseActionItem>(mItems.size());
+        for (BaseActionItem action : mItems) {
+            copies.add(new BaseActionItem(action));
+        }
+
+        return copies;
+    }
+
+    /**
+     * Notify the changes made by the ArrayAdapter methods if it is enabled.
+     */
+    private void onItemsChanged() {
+        if (mNotifyOnChange) {
+            notifyDataSetChanged();
+        }
+    }
+
+    @Override
+    public void add(BaseActionItem object) {
+        mItems.add(object);
+        onItemsChanged();
+    }
+
+    @Override
+    public void addAll(Collection<? extends BaseActionItem> collection) {
+        mItems.addAll(collection);
+        onItemsChanged();
+    }
+
+    @Override
+    public void addAll(BaseActionItem... items) {
+        Collections.addAll(mItems, items);
+        onItemsChanged();
+    }
+
+    @Override
+    public void insert(BaseActionItem object, int index) {
+        mItems.add(index, object);
+        onItemsChanged();
+    }
+
+    @Override
+    public void remove(BaseActionItem object) {
+        mItems.remove(object);
+        onItemsChanged();
+    }
+
+    @Override
+    public void clear() {
+        mItems.clear();
+        onItemsChanged();
+    }
+
+    @Override
+    public void sort(Comparator<? super BaseActionItem> comparator) {
+        Collections.sort(mItems, comparator);
+        onItemsChanged();
+    }
+
+    @Override
+    public void setNotifyOnChange(boolean notifyOnChange) {
+        super.setNotifyOnChange(notifyOnChange);
+        this.mNotifyOnChange = notifyOnChange;
+    }
+
+    @Override
+    public void setOnItemRangeChangedListener(@Nullable OnItemRangeChangedListener listener) {
+        this.mItemRangeChangedListener = listener;
+    }
+
+    @Override
+    public void notifyDataSetChanged() {
+        // All the rows will be bound again with the current values.
+        mSnapshot = copyItems();
+        mNotifyOnChange = true;
+        super.notifyDataSetChanged();
     }
 
     @Override
     public View getView(final int position, View convertView, ViewGroup parent) {
         ViewHolder viewHolder;
         if (convertView == null) {
-            convertView = mLayoutInflator.inflate(mLayoutId, parent, false);
+            convertView = ViewPool.getInstance().obtain(mLayoutInflator, mLayoutId, parent);
             viewHolder = new ViewHolder(convertView);
             convertView.setTag(viewHolder);
         } else {
             viewHolder = (ViewHolder) convertView.getTag();
         }
 
-        BaseActionItem action = (BaseActionItem) actionsList.get(position);
+        BaseActionItem action = getItem(position);
 
         viewHolder.icon.setImageResource(action.getIconId());
         viewHolder.name.setText(mContext.getString(action.getNameId()));
@@ -103,9 +298,55 @@ public class BaseActionItemAdapter extends ArrayAdapter<BaseActionItem> {
             viewHolder.icon.setColorType(ColorType.NONE);
         }
 
+        if (mQuery != null) {
+            int[] match = SearchIndex.findMatch(viewHolder.name.getText(), mQuery);
+            if (match != null) {
+                DynamicTheme.highlightTextColor(viewHolder.name, match[0], match[1],
+                        SmallTheme.getInstance().getColorFromType(ColorType.ACCENT));
+            }
+        }
+
         return convertView;
     }
 
+    @Override
+    public int search(@NonNull String query) {
+        if (query.length() == 0) {
+            mQuery = null;
+            mSearchResults = null;
+        } else {
+            if (mSearchIndex == null || mSearchIndex.size() != mItems.size()) {
+                mSearchIndex = new SearchIndex<BaseActionItem>();
+                for (BaseActionItem action : mItems) {
+                    mSearchIndex.add(action, mContext.getString(action.getNameId()));
+                }
+            }
+
+            mQuery = query.toLowerCase(Locale.getDefault());
+            mSearchResults = mSearchIndex.filter(mQuery);
+        }
+
+        notifyDataSetChanged();
+        return getCount();
+    }
+
+    @Override
+    public int getCount() {
+        return mSearchResults != null ? mSearchResults.size() : mItems.size();
+    }
+
+    @Override
+    public BaseActionItem getItem(int position) {
+        return mSearchResults != null ? mSearchResults.get(position)
+                : mItems.get(position);
+    }
+
+    @Override
+    public int getPosition(BaseActionItem item) {
+        return mSearchResults != null ? mSearchResults.indexOf(item)
+                : mItems.indexOf(item);
+    }
+
     /**
      * Holder class to hold ImageView and TextView of the action item.
      */
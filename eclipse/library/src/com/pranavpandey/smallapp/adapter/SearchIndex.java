@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.smallapp.adapter;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * A class to search the items of an adapter by their labels. Labels are
+ * normalized only once when the items are added, i.e. lower-cased and
+ * without accents, and a query which extends the previous one will only
+ * scan the previously matched items.
+ *
+ * @param <T> Type of the items to be searched.
+ */
+public class SearchIndex<T> {
+
+    /**
+     * Pattern to remove the accents from the decomposed text.
+     */
+    private static final Pattern DIACRITICS =
+            Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+    /**
+     * Items added to this index.
+     */
+    private final List<T> mItems = new ArrayList<T>();
+
+    /**
+     * Normalized labels of the items at the same positions.
+     */
+    private final List<String> mKeys = new ArrayList<String>();
+
+    /**
+     * Normalized query used for the last search.
+     */
+    private @Nullable String mLastQuery;
+
+    /**
+     * Positions of the items matched by the last search.
+     */
+    private List<Integer> mLastMatches;
+
+    /**
+     * Normalize a text to be searched. It will be lower-cased and all
+     * the accents will be removed.
+     *
+     * @param text The text to be normalized.
+     *
+     * @return The normalized text.
+     */
+    public static String normalize(@Nullable CharSequence text) {
+        if (text == null) {
+            return "";
+        }
+
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(normalized).replaceAll("")
+                .toLowerCase(Locale.getDefault());
+    }
+
+    /**
+     * Find the first occurrence of a query within a text by comparing their
+     * normalized forms. Suitable to highlight the part of a label matched by
+     * {@link #filter(CharSequence)}, e.g. <code>cafe</code> within
+     * <code>Caf\u00e9</code>, as the normalized text may differ in length
+     * from the original one.
+     *
+     * @param text The original text to be searched.
+     * @param query The query to be found.
+     *
+     * @return Start (inclusive) and end (exclusive) positions of the match
+     *         within the original text, or <code>null</code> if the query
+     *         is empty or not found.
+     */
+    public static @Nullable int[] findMatch(@Nullable CharSequence text,
+            @Nullable CharSequence query) {
+        String normalizedQuery = normalize(query);
+        if (text == null || normalizedQuery.isEmpty()) {
+            return null;
+        }
+
+        // Normalize each character separately to remember its position.
+        StringBuilder normalized = new StringBuilder(text.length());
+        int[] origins = new int[text.length() * 4];
+        int count = 0;
+        for (int i = 0; i < text.length(); ) {
+            int next = i + Character.charCount(Character.codePointAt(text, i));
+            String part = normalize(text.subSequence(i, next));
+            if (count + part.length() > origins.length) {
+                int[] grown = new int[Math.max(origins.length * 2,
+                        count + part.length())];
+                System.arraycopy(origins, 0, grown, 0, count);
+                origins = grown;
+            }
+
+            for (int j = 0; j < part.length(); j++) {
+                origins[count++] = i;
+            }
+            normalized.append(part);
+            i = next;
+        }
+
+        int start = normalized.indexOf(normalizedQuery);
+        if (start < 0) {
+            return null;
+        }
+
+        int last = origins[start + normalizedQuery.length() - 1];
+        int end = last + Character.charCount(Character.codePointAt(text, last));
+
+        // Keep the accents following the last matched character.
+        while (end < text.length() && Character.getType(text.charAt(end))
+                == Character.NON_SPACING_MARK) {
+            end++;
+        }
+
+        return new int[] { origins[start], end };
+    }
+
+    /**
+     * Add an item to this index.
+     *
+     * @param item The item to be added.
+     * @param label The label to search the item.
+     */
+    public void add(@NonNull T item, @Nullable CharSequence label) {
+        mItems.add(item);
+        mKeys.add(normalize(label));
+
+        // New item may match the last query so, next search will scan all.
+        mLastQuery = null;
+    }
+
+    /**
+     * Remove all the items from this index.
+     */
+    public void clear() {
+        mItems.clear();
+        mKeys.clear();
+        mLastQuery = null;
+    }
+
+    /**
+     * @return The no. of items in this index.
+     */
+    public int size() {
+        return mItems.size();
+    }
+
+    /**
+     * Find the items whose label contains the supplied query. If the query
+     * extends the last query then, only the last matched items will be
+     * scanned.
+     *
+     * @param query The query to be searched.
+     *
+     * @return List of the matched items in the order they were added.
+     */
+    public List<T> filter(@Nullable CharSequence query) {
+        String normalizedQuery = normalize(query);
+        List<Integer> matches = new ArrayList<Integer>();
+
+        if (mLastQuery != null && normalizedQuery.startsWith(mLastQuery)) {
+            for (Integer position : mLastMatches) {
+                if (mKeys.get(position).contains(normalizedQuery)) {
+                    matches.add(position);
+                }
+            }
+        } else {
+            for (int i = 0; i < mKeys.size(); i++) {
+                if (mKeys.get(i).contains(normalizedQuery)) {
+                    matches.add(i);
+                }
+            }
+        }
+
+        mLastQuery = normalizedQuery;
+        mLastMatches = matches;
+
+        List<T> results = new ArrayList<T>(matches.size());
+        for (Integer position : matches) {
+            results.add(mItems.get(position));
+        }
+
+        return results;
+    }
+}
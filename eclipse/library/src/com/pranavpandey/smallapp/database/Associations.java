@@ -16,14 +16,45 @@
 
 package com.pranavpandey.smallapp.database;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import com.pranavpandey.smallapp.SmallUtils;
+
+import android.annotation.TargetApi;
+import android.content.ComponentName;
 import android.content.Context;
+import android.content.Intent;
 import android.database.Cursor;
-import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.util.Pair;
+import android.util.Log;
 import android.widget.Toast;
 
 /**
@@ -37,6 +68,49 @@ import android.widget.Toast;
  */
 public class Associations {
 
+    /**
+     * Tag to log the associations which could not be saved.
+     */
+    private static final String TAG = "Associations";
+
+    /**
+     * Interface definition for a callback to be invoked when one or more
+     * associations have been changed.
+     */
+    public interface OnAssociationsChangedListener {
+
+        /**
+         * Called after the changes have been saved. Changes made in a short
+         * time will be delivered together.
+         *
+         * @param keys The keys that have been inserted, updated or deleted.
+         */
+        public void onAssociationsChanged(Set<String> keys);
+    }
+
+    /**
+     * Registered listeners to be notified when the associations change.
+     *
+     * @see #registerListener(OnAssociationsChangedListener, Executor)
+     */
+    private static final Map<OnAssociationsChangedListener, ListenerRecord> sListeners =
+            new LinkedHashMap<OnAssociationsChangedListener, ListenerRecord>();
+
+    /**
+     * Shared SQLiteOpenHelper object for the whole process. All the small
+     * apps run in the same process so, they can use a single database
+     * connection instead of opening and closing it for every operation.
+     */
+    private static SQLiteHelper sSQLiteHelper;
+
+    /**
+     * No. of small apps currently holding the shared database connection.
+     *
+     * @see #openConnection(Context)
+     * @see #closeConnection()
+     */
+    private static int sReferenceCount;
+
     /**
      * SQLiteOpenHelper object to perform database operations
      */
@@ -52,7 +126,60 @@ public class Associations {
             throw new NullPointerException("Context should not be null");
         }
 
-        mSQLiteHelper = new SQLiteHelper(context);
+        mSQLiteHelper = getSharedHelper(context);
+    }
+
+    /**
+     * Get the shared {@link SQLiteHelper}, create it if it is not
+     * initialized yet.
+     *
+     * @param context to initialize the helper.
+     *
+     * @return Shared instance of {@link #sSQLiteHelper}.
+     */
+    private static synchronized SQLiteHelper getSharedHelper(Context context) {
+        if (sSQLiteHelper == null) {
+            sSQLiteHelper = new SQLiteHelper(context.getApplicationContext());
+        }
+
+        return sSQLiteHelper;
+    }
+
+    /**
+     * Acquire the shared database connection. It will remain open until
+     * all the callers have released it by calling {@link #closeConnection()}.
+     * It is already handled by the {@link com.pranavpandey.smallapp.SmallApp}.
+     *
+     * @param context to initialize the helper.
+     */
+    public static synchronized void openConnection(Context context) {
+        if (context == null) {
+            throw new NullPointerException("Context should not be null");
+        }
+
+        getSharedHelper(context);
+        sReferenceCount++;
+    }
+
+    /**
+     * Release the shared database connection acquired by
+     * {@link #openConnection(Context)}. Pending asynchronous writes will
+     * be flushed and the database will be closed when there is no caller
+     * holding it. The helper itself is kept so that its in-memory
+     * associations remain valid and shared by all the instances.
+     */
+    public static synchronized void closeConnection() {
+        if (sSQLiteHelper != null) {
+            sSQLiteHelper.flush();
+        }
+
+        if (sReferenceCount > 0) {
+            sReferenceCount--;
+        }
+
+        if (sReferenceCount == 0 && sSQLiteHelper != null) {
+            sSQLiteHelper.close();
+        }
     }
 
     /**
@@ -62,9 +189,186 @@ public class Associations {
         return mSQLiteHelper;
     }
 
+    /**
+     * Register a listener to be notified on the main thread when the
+     * associations change.
+     *
+     * @param listener to be registered.
+     */
+    public static void registerListener(@NonNull OnAssociationsChangedListener listener) {
+        registerListener(listener, new Handler(Looper.getMainLooper()));
+    }
+
+    /**
+     * Register a listener to be notified on the supplied handler when the
+     * associations change.
+     *
+     * @param listener to be registered.
+     * @param handler to deliver the changes.
+     */
+    public static void registerListener(@NonNull OnAssociationsChangedListener listener,
+                                        @NonNull final Handler handler) {
+        registerListener(listener, new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                handler.post(command);
+            }
+        });
+    }
+
+    /**
+     * Register a listener to be notified on the supplied executor when the
+     * associations change. Changes made before the previous notification
+     * has been delivered will be coalesced in a single notification.
+     *
+     * @param listener to be registered.
+     * @param executor to deliver the changes.
+     */
+    public static void registerListener(@NonNull OnAssociationsChangedListener listener,
+                                        @NonNull Executor executor) {
+        ListenerRecord previous;
+        synchronized (sListeners) {
+            previous = sListeners.put(listener, new ListenerRecord(listener, executor));
+        }
+
+        // Changes pending for the previous registration will not be delivered.
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Unregister a listener registered previously. It will not receive
+     * any pending notification.
+     *
+     * @param listener to be unregistered.
+     */
+    public static void unregisterListener(@NonNull OnAssociationsChangedListener listener) {
+        synchronized (sListeners) {
+            ListenerRecord record = sListeners.remove(listener);
+            if (record != null) {
+                record.cancel();
+            }
+        }
+    }
+
+    /**
+     * Notify all the registered listeners that the supplied keys have
+     * been changed. It should not be called while holding the lock of a
+     * helper as the listeners may be notified on the calling thread.
+     *
+     * @param keys The keys that have been changed.
+     */
+    private static void notifyAssociationsChanged(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        List<ListenerRecord> records;
+        synchronized (sListeners) {
+            records = new ArrayList<ListenerRecord>(sListeners.values());
+        }
+
+        for (ListenerRecord record : records) {
+            record.dispatch(keys);
+        }
+    }
+
+    /**
+     * Class to hold a registered listener with its executor and the
+     * changes waiting to be delivered.
+     */
+    private static class ListenerRecord implements Runnable {
+
+        /**
+         * Listener to be notified.
+         */
+        private final OnAssociationsChangedListener mListener;
+
+        /**
+         * Executor to deliver the changes.
+         */
+        private final Executor mExecutor;
+
+        /**
+         * Changed keys waiting to be delivered.
+         */
+        private Set<String> mPendingKeys = new HashSet<String>();
+
+        /**
+         * <code>true</code> if the listener has been unregistered.
+         */
+        private boolean mCancelled;
+
+        ListenerRecord(OnAssociationsChangedListener listener, Executor executor) {
+            this.mListener = listener;
+            this.mExecutor = executor;
+        }
+
+        /**
+         * Add the changed keys and schedule a notification if it is not
+         * already scheduled.
+         *
+         * @param keys The keys that have been changed.
+         */
+        void dispatch(Collection<String> keys) {
+            boolean schedule;
+            synchronized (this) {
+                if (mCancelled) {
+                    return;
+                }
+
+                schedule = mPendingKeys.isEmpty();
+                mPendingKeys.addAll(keys);
+            }
+
+            // Executor may run it directly so, do not hold the lock.
+            if (schedule) {
+                mExecutor.execute(this);
+            }
+        }
+
+        /**
+         * Cancel all the pending notifications.
+         */
+        synchronized void cancel() {
+            mCancelled = true;
+            mPendingKeys.clear();
+        }
+
+        @Override
+        public void run() {
+            Set<String> keys;
+            synchronized (this) {
+                if (mCancelled || mPendingKeys.isEmpty()) {
+                    return;
+                }
+
+                keys = Collections.unmodifiableSet(mPendingKeys);
+                mPendingKeys = new HashSet<String>();
+            }
+
+            mListener.onAssociationsChanged(keys);
+        }
+    }
+
     /**
      * A SQLiteOpenHelper class to perform read, create update and delete
      * operations on our database to manage file or intent associations.
+     * Database is kept open between the operations and will be closed by
+     * {@link Associations#closeConnection()}.
+     *
+     * <p>All the associations are loaded in memory on first access so, reads
+     * will not perform any I/O. Writes are performed on the database first
+     * and then on the in-memory copy.</p>
+     *
+     * <p>Use {@link #putAsync(String, String)} to save an association from
+     * the UI thread. It will update the in-memory copy immediately and write
+     * it to the database later on a background thread.</p>
+     *
+     * <p>It also keeps a usage score of the launched components for each
+     * key which decays with time. Use it to rank the components according
+     * to their usage.</p>
      */
     public static class SQLiteHelper extends SQLiteOpenHelper {
 
@@ -88,19 +392,208 @@ public class Associations {
          */
         private static final String COL_VALUE = "intent_package";
 
+        /**
+         * Name of the table in which we have to store the usage of
+         * components for each intent type.
+         */
+        private static final String TABLE_USAGE = "usage";
+
+        /**
+         * Name of the Component Column in which we store flattened
+         * component name.
+         */
+        private static final String COL_COMPONENT = "component";
+
+        /**
+         * Name of the Score Column in which we store decayed launch count.
+         */
+        private static final String COL_SCORE = "score";
+
+        /**
+         * Name of the Updated Column in which we store time of the last
+         * score update.
+         */
+        private static final String COL_UPDATED = "updated";
+
         /**
          * Version of the database.
          */
-        private static final int VERSION = 1;
+        private static final int VERSION = 2;
+
+        /**
+         * Time in milliseconds after which a usage score becomes half
+         * of its value.
+         */
+        private static final long USAGE_HALF_LIFE = 7 * 24 * 60 * 60 * 1000L;
+
+        /**
+         * Steps to migrate the database incrementally without losing the
+         * saved associations. Step at index <code>i</code> migrates the
+         * database from version <code>i + 1</code> to <code>i + 2</code>.
+         * Add a new step here whenever the {@link #VERSION} is increased.
+         * Each step must be safe to run again after a downgrade.
+         */
+        private static final Migration[] MIGRATIONS = new Migration[] {
+                // 1 -> 2: Add table to store the usage of components.
+                new Migration() {
+                    @Override
+                    public void migrate(SQLiteDatabase db) {
+                        createUsageTable(db);
+                    }
+                }
+        };
+
+        /**
+         * Delay in milliseconds before writing the pending asynchronous
+         * writes so that the repeated writes can be coalesced.
+         */
+        private static final int WRITE_DELAY = 500;
+
+        /**
+         * Maximum no. of database pages to be cached by SQLite. It is a
+         * small key-value table so, a few pages are enough to hold it.
+         */
+        private static final int CACHE_SIZE = 32;
+
+        /**
+         * Sub type to match all the types of a base type.
+         */
+        private static final String WILDCARD_SUB_TYPE = "/*";
+
+        /**
+         * Separator between the uri scheme and host of a key.
+         */
+        private static final String SCHEME_SEPARATOR = "://";
+
+        /**
+         * Magic number at the start of an exported snapshot.
+         */
+        private static final int SNAPSHOT_MAGIC = 0x53415341;
+
+        /**
+         * Version of the snapshot format.
+         */
+        private static final int SNAPSHOT_VERSION = 1;
 
         /**
          * Context to retrieve resources.
          */
         private Context context;
 
+        /**
+         * In-memory copy of all the associations saved in the database.
+         */
+        private Map<String, String> mCache;
+
+        /**
+         * Compiled statement to insert or replace a <key, value> pair.
+         */
+        private SQLiteStatement mPutStatement;
+
+        /**
+         * Compiled statement to delete a key.
+         */
+        private SQLiteStatement mDeleteStatement;
+
+        /**
+         * Compiled statement to insert or replace the usage of a component.
+         */
+        private SQLiteStatement mUsageStatement;
+
+        /**
+         * Database for which the statements have been compiled.
+         */
+        private SQLiteDatabase mStatementsDatabase;
+
+        /**
+         * Pending asynchronous writes with the latest value for each key.
+         */
+        private final Map<String, String> mPendingWrites =
+                new LinkedHashMap<String, String>();
+
+        /**
+         * In-memory copy of the usage of components loaded for each key.
+         */
+        private final Map<String, Map<String, Usage>> mUsageCache =
+                new HashMap<String, Map<String, Usage>>();
+
+        /**
+         * Pending asynchronous usage writes for each key and component.
+         */
+        private final Map<Pair<String, String>, Usage> mPendingUsage =
+                new LinkedHashMap<Pair<String, String>, Usage>();
+
+        /**
+         * Single background thread to perform asynchronous writes.
+         */
+        private ScheduledExecutorService mWriteExecutor;
+
+        /**
+         * <code>true</code> if a flush is already scheduled on the
+         * {@link #mWriteExecutor}.
+         */
+        private boolean mFlushScheduled;
+
+        /**
+         * Keys changed while holding the lock of this helper which will be
+         * notified to the listeners after releasing it.
+         *
+         * @see #dispatchChanges()
+         */
+        private Set<String> mChangedKeys = new HashSet<String>();
+
+        /**
+         * <code>true</code> to notify the registered listeners about the
+         * changes. It will be <code>false</code> for a scratch database.
+         */
+        private final boolean mNotifyListeners;
+
         public SQLiteHelper(Context context) {
-            super(context, DB_NAME, null, VERSION);
+            this(context, DB_NAME, true);
+        }
+
+        /**
+         * Constructor to create a helper for a different database, e.g. a
+         * scratch database to run the benchmarks.
+         *
+         * @param context to open the database.
+         * @param name Name of the database.
+         * @param notifyListeners <code>true</code> to notify the registered
+         * listeners about the changes.
+         */
+        SQLiteHelper(Context context, String name, boolean notifyListeners) {
+            super(context, name, null, VERSION);
             this.context = context;
+            this.mNotifyListeners = notifyListeners;
+        }
+
+        /**
+         * Configure the database connection for our small key-value
+         * workload. It enables write-ahead logging so that the reads will
+         * not be blocked by a write and a write will need fewer syncs.
+         *
+         * @param db Database to be configured.
+         */
+        private void configureDatabase(SQLiteDatabase db) {
+            if (!db.isReadOnly()) {
+                db.enableWriteAheadLogging();
+                db.execSQL("PRAGMA synchronous = NORMAL");
+            }
+            db.execSQL("PRAGMA cache_size = " + CACHE_SIZE);
+        }
+
+        @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+        @Override
+        public void onConfigure(SQLiteDatabase db) {
+            configureDatabase(db);
+        }
+
+        @Override
+        public void onOpen(SQLiteDatabase db) {
+            // Configure here as onConfigure is not available before JellyBean.
+            if (!SmallUtils.isJellyBean()) {
+                configureDatabase(db);
+            }
         }
 
         @Override
@@ -108,12 +601,332 @@ public class Associations {
             db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_NAME +
                     " ( " + COL_KEY + " text primary key not null, " +
                     COL_VALUE + " text null);");
+            createUsageTable(db);
+        }
+
+        /**
+         * Create table to store the usage of components.
+         *
+         * @param db Database to create table.
+         */
+        private static void createUsageTable(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_USAGE +
+                    " ( " + COL_KEY + " text not null, " +
+                    COL_COMPONENT + " text not null, " +
+                    COL_SCORE + " real not null, " +
+                    COL_UPDATED + " integer not null, " +
+                    "primary key (" + COL_KEY + ", " + COL_COMPONENT + "));");
         }
 
         @Override
         public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-            db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
-            onCreate(db);
+            for (int version = oldVersion; version < newVersion; version++) {
+                MIGRATIONS[version - 1].migrate(db);
+            }
+        }
+
+        /**
+         * Keep the database as it is if an older version of the app has been
+         * installed. Migrations only add tables or columns which are ignored
+         * by the older versions and are written with <code>IF NOT EXISTS</code>
+         * so that they can be applied again on the next upgrade.
+         *
+         * @see #MIGRATIONS
+         */
+        @Override
+        public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) { }
+
+        /**
+         * Get the open database and compile the statements for it if they
+         * are not compiled yet. Statements are compiled only once and then
+         * rebound for each operation so that SQLite does not have to parse
+         * the query again.
+         *
+         * @return Open database to perform operations.
+         */
+        private SQLiteDatabase getDatabase() {
+            SQLiteDatabase db = getWritableDatabase();
+
+            if (mStatementsDatabase != db) {
+                releaseStatements();
+
+                mPutStatement = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_NAME +
+                        " (" + COL_KEY + ", " + COL_VALUE + ") VALUES (?, ?)");
+                mDeleteStatement = db.compileStatement("DELETE FROM " + TABLE_NAME +
+                        " WHERE " + COL_KEY + " = ?");
+                mUsageStatement = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_USAGE +
+                        " (" + COL_KEY + ", " + COL_COMPONENT + ", " + COL_SCORE + ", " +
+                        COL_UPDATED + ") VALUES (?, ?, ?, ?)");
+                mStatementsDatabase = db;
+            }
+
+            return db;
+        }
+
+        /**
+         * Release all the compiled statements.
+         */
+        private void releaseStatements() {
+            if (mPutStatement != null) {
+                mPutStatement.close();
+                mPutStatement = null;
+            }
+
+            if (mDeleteStatement != null) {
+                mDeleteStatement.close();
+                mDeleteStatement = null;
+            }
+
+            if (mUsageStatement != null) {
+                mUsageStatement.close();
+                mUsageStatement = null;
+            }
+
+            mStatementsDatabase = null;
+        }
+
+        /**
+         * Get the in-memory copy of the associations, load it from the
+         * database if it is not loaded yet.
+         *
+         * @return Map of all the saved associations.
+         */
+        private Map<String, String> getCache() {
+            if (mCache == null) {
+                mCache = new HashMap<String, String>();
+
+                Cursor cursor = getDatabase().query(TABLE_NAME,
+                        new String[] { COL_KEY, COL_VALUE }, null, null, null, null, null);
+                if (cursor != null) {
+                    while (cursor.moveToNext()) {
+                        cachePut(cursor.getString(0), cursor.getString(1));
+                    }
+                    cursor.close();
+                }
+            }
+
+            return mCache;
+        }
+
+        /**
+         * Put an association in the in-memory copy.
+         *
+         * @param key of the association.
+         * @param value of the key.
+         */
+        private void cachePut(String key, String value) {
+            mCache.put(key, value);
+        }
+
+        /**
+         * Remove an association from the in-memory copy.
+         *
+         * @param key of the association.
+         */
+        private void cacheRemove(String key) {
+            mCache.remove(key);
+        }
+
+        /**
+         * Extract the base type from a MIME type key. For example,
+         * <code>image</code> from <code>image/png</code>.
+         *
+         * @param key to extract the base type.
+         *
+         * @return Base type of the key or <code>null</code> if it is
+         * not a MIME type.
+         */
+        private static @Nullable String getBaseType(String key) {
+            if (key == null) {
+                return null;
+            }
+
+            int index = key.indexOf('/');
+            return index > 0 ? key.substring(0, index) : null;
+        }
+
+        /**
+         * Get the key to save an association for the supplied intent. It
+         * will be the intent type or <code>scheme://host</code> if the
+         * intent has no type. Scheme and host are lower-cased and the
+         * scheme alone will be used if the uri has no host.
+         *
+         * @param intent to get the key.
+         *
+         * @return Key to save an association for this intent.
+         *
+         * @see #getKeys(Intent)
+         */
+        public String getKey(@NonNull Intent intent) {
+            return getKeys(intent).get(0);
+        }
+
+        /**
+         * Get all the keys which can match the supplied intent ordered from
+         * the most specific to the least specific. It will be the exact type
+         * and <code>type/*</code> or <code>scheme://host</code> and the
+         * scheme if the intent has no type.
+         *
+         * @param intent to get the keys.
+         *
+         * @return List of the keys for this intent, first one is same as
+         * {@link #getKey(Intent)}.
+         */
+        public List<String> getKeys(@NonNull Intent intent) {
+            return getKeys(intent, intent.resolveType(context));
+        }
+
+        /**
+         * Get all the keys which can match the supplied intent with an
+         * already resolved type.
+         *
+         * @param intent to get the keys.
+         * @param type Resolved type of the intent.
+         *
+         * @return List of the keys for this intent.
+         *
+         * @see #getKeys(Intent)
+         */
+        private List<String> getKeys(@NonNull Intent intent, @Nullable String type) {
+            List<String> keys = new ArrayList<String>(2);
+
+            if (type != null) {
+                keys.add(type);
+
+                String baseType = getBaseType(type);
+                if (baseType != null && !type.equals(baseType + WILDCARD_SUB_TYPE)) {
+                    keys.add(baseType + WILDCARD_SUB_TYPE);
+                }
+            } else if (intent.getScheme() != null) {
+                String scheme = intent.getScheme().toLowerCase(Locale.US);
+                String host = intent.getData() != null ? intent.getData().getHost() : null;
+
+                if (host != null && !host.isEmpty()) {
+                    keys.add(scheme + SCHEME_SEPARATOR + host.toLowerCase(Locale.US));
+                }
+                keys.add(scheme);
+            } else {
+                keys.add(String.valueOf(type));
+            }
+
+            return keys;
+        }
+
+        /**
+         * Retrieve the associated value for the supplied intent. It will
+         * try each key returned by {@link #getKeys(Intent)} in order, e.g.
+         * <code>image/png</code> and then <code>image/*</code>, or
+         * <code>http://example.com</code> and then <code>http</code>.
+         * Each step is a single lookup in the in-memory copy.
+         *
+         * @param intent to retrieve value.
+         *
+         * @return Value of the most specific association for this intent.
+         *
+         * @see #putAsync(Intent, String)
+         */
+        public synchronized String get(@NonNull Intent intent) {
+            Map<String, String> cache = getCache();
+            String type = intent.resolveType(context);
+            String value;
+
+            for (String key : getKeys(intent, type)) {
+                if ((value = cache.get(key)) != null) {
+                    return value;
+                }
+            }
+
+            // Associations saved by the older versions for the intents without type.
+            return type == null ? cache.get(String.valueOf(type)) : null;
+        }
+
+        @Override
+        public void close() {
+            try {
+                synchronized (this) {
+                    // Retry once as there may not be any write to retry it later.
+                    if (!flush() && !flush()) {
+                        Log.w(TAG, "Pending associations could not be saved: "
+                                + mPendingWrites.keySet() + ", usage: " + mPendingUsage.size());
+                    }
+
+                    if (mWriteExecutor != null) {
+                        mWriteExecutor.shutdownNow();
+                        mWriteExecutor = null;
+                    }
+
+                    // Pending writes are still in the cache and will be saved by the
+                    // next write or flush in this process.
+                    mFlushScheduled = false;
+
+                    releaseStatements();
+                    super.close();
+                }
+            } finally {
+                dispatchChanges();
+            }
+        }
+
+        /**
+         * Add the changed keys to be notified by {@link #dispatchChanges()}.
+         *
+         * @param keys The keys that have been changed.
+         */
+        private void addChangedKeys(Collection<String> keys) {
+            mChangedKeys.addAll(keys);
+        }
+
+        /**
+         * Notify the listeners about the changed keys after the lock of
+         * this helper has been released so that a listener cannot block
+         * or deadlock the writes. Changes made by a nested call will be
+         * notified by the outermost call.
+         */
+        private void dispatchChanges() {
+            if (Thread.holdsLock(this)) {
+                return;
+            }
+
+            Set<String> keys;
+            synchronized (this) {
+                if (mChangedKeys.isEmpty()) {
+                    return;
+                }
+
+                keys = mChangedKeys;
+                mChangedKeys = new HashSet<String>();
+            }
+
+            if (mNotifyListeners) {
+                notifyAssociationsChanged(keys);
+            }
+        }
+
+        /**
+         * Bind and execute the compiled insert statement. Keys and values
+         * are stored as their string value to keep the entries saved by
+         * the older versions.
+         *
+         * @param key to be inserted.
+         * @param value of the key.
+         *
+         * @return <code>true</code> if inserts successfully.
+         */
+        private boolean executePut(String key, Object value) {
+            mPutStatement.bindString(1, String.valueOf(key));
+            mPutStatement.bindString(2, String.valueOf(value));
+
+            return mPutStatement.executeInsert() != -1;
+        }
+
+        /**
+         * Bind and execute the compiled delete statement.
+         *
+         * @param key to be deleted.
+         */
+        private void executeDelete(String key) {
+            mDeleteStatement.bindString(1, String.valueOf(key));
+            mDeleteStatement.executeUpdateDelete();
         }
 
         /**
@@ -125,13 +938,22 @@ public class Associations {
          * @return <code>true</code> if inserts successfully.
          */
         public boolean put(String key, String value) {
-            SQLiteDatabase db = this.getWritableDatabase();
-            db.execSQL("INSERT OR REPLACE INTO " + TABLE_NAME +
-                    " (" + COL_KEY + ", " + COL_VALUE + ") " +
-                    " VALUES('" + key + "', '" + value + "')");
-            db.close();
+            try {
+                synchronized (this) {
+                    getCache();
+                    getDatabase();
+                    mPendingWrites.remove(String.valueOf(key));
+                    if (!executePut(key, value)) {
+                        return false;
+                    }
 
-            return true;
+                    cachePut(String.valueOf(key), String.valueOf(value));
+                    addChangedKeys(Collections.singleton(String.valueOf(key)));
+                    return true;
+                }
+            } finally {
+                dispatchChanges();
+            }
         }
 
         /**
@@ -142,25 +964,236 @@ public class Associations {
          * @return <code>true</code> if inserts successfully.
          */
         public boolean put(List<Pair<String, ?>> list) {
-            SQLiteDatabase db = getWritableDatabase();
-            boolean result = true;
+            try {
+                synchronized (this) {
+                    getCache();
+                    SQLiteDatabase db = getDatabase();
+                    boolean result = true;
+
+                    try {
+                        db.beginTransaction();
+                        for (Pair<String, ?> pair : list) {
+                            executePut(pair.first, pair.second);
+                        }
+                        db.setTransactionSuccessful();
+                    } catch (Exception e) {
+                        result = false;
+                    } finally {
+                        db.endTransaction();
+                    }
+
+                    if (result) {
+                        Set<String> keys = new HashSet<String>();
+                        for (Pair<String, ?> pair : list) {
+                            cachePut(String.valueOf(pair.first), String.valueOf(pair.second));
+                            mPendingWrites.remove(String.valueOf(pair.first));
+                            keys.add(String.valueOf(pair.first));
+                        }
+                        addChangedKeys(keys);
+                    }
+
+                    return result;
+                }
+            } finally {
+                dispatchChanges();
+            }
+        }
+
+        /**
+         * Insert a <key, value> pair into the database asynchronously. It
+         * will be available immediately via {@link #get(String)} but will be
+         * written to the database later on a background thread. Repeated
+         * writes for the same key will be coalesced and all the pending
+         * writes will be written in a single transaction.
+         *
+         * @param key to be inserted.
+         * @param value of the key.
+         *
+         * @see #flush()
+         */
+        public synchronized void putAsync(String key, String value) {
+            getCache();
+            cachePut(String.valueOf(key), String.valueOf(value));
+            mPendingWrites.put(String.valueOf(key), String.valueOf(value));
+            scheduleFlush();
+        }
+
+        /**
+         * Insert an association for the supplied intent asynchronously. It
+         * will be saved under all the keys returned by
+         * {@link #getKeys(Intent)} so that the similar intents, e.g. other
+         * image types or links to other hosts, will also match it until
+         * they have their own association. A broader match should still be
+         * verified as the associated app may not handle every intent of it.
+         *
+         * @param intent to be associated.
+         * @param value of the intent.
+         *
+         * @see #get(Intent)
+         */
+        public synchronized void putAsync(@NonNull Intent intent, String value) {
+            for (String key : getKeys(intent)) {
+                putAsync(key, value);
+            }
+        }
+
+        /**
+         * Schedule a {@link #flush()} on the background thread if it is
+         * not already scheduled.
+         */
+        private void scheduleFlush() {
+            if (!mFlushScheduled) {
+                mFlushScheduled = true;
+
+                if (mWriteExecutor == null) {
+                    mWriteExecutor = Executors.newSingleThreadScheduledExecutor();
+                }
+
+                mWriteExecutor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        flush();
+                    }
+                }, WRITE_DELAY, TimeUnit.MILLISECONDS);
+            }
+        }
 
+        /**
+         * Write all the pending asynchronous writes to the database in a
+         * single transaction. It will block the calling thread until all
+         * the writes have been completed. If the transaction fails then,
+         * the pending writes will be kept and written again later.
+         *
+         * @return <code>true</code> if writes successfully.
+         *
+         * @see #putAsync(String, String)
+         */
+        public boolean flush() {
             try {
-                db.beginTransaction();
-                for (Pair<String, ?> pair : list) {
-                    db.execSQL("INSERT OR REPLACE INTO " + TABLE_NAME +
-                            " (" + COL_KEY + ", " + COL_VALUE + ") " +
-                            " VALUES('" + pair.first + "', '" + String.valueOf(pair.second) + "')");
+                synchronized (this) {
+                    mFlushScheduled = false;
+                    if (mPendingWrites.isEmpty() && mPendingUsage.isEmpty()) {
+                        return true;
+                    }
+
+                    SQLiteDatabase db = getDatabase();
+                    boolean result = true;
+
+                    try {
+                        db.beginTransaction();
+                        for (Map.Entry<String, String> entry : mPendingWrites.entrySet()) {
+                            executePut(entry.getKey(), entry.getValue());
+                        }
+                        for (Map.Entry<Pair<String, String>, Usage> entry : mPendingUsage.entrySet()) {
+                            mUsageStatement.bindString(1, entry.getKey().first);
+                            mUsageStatement.bindString(2, entry.getKey().second);
+                            mUsageStatement.bindDouble(3, entry.getValue().score);
+                            mUsageStatement.bindLong(4, entry.getValue().updated);
+                            mUsageStatement.executeInsert();
+                        }
+                        db.setTransactionSuccessful();
+                    } catch (Exception e) {
+                        result = false;
+                    } finally {
+                        db.endTransaction();
+                    }
+
+                    if (!result) {
+                        // Keep the pending writes as the cache already has them.
+                        scheduleFlush();
+                        return false;
+                    }
+
+                    addChangedKeys(new HashSet<String>(mPendingWrites.keySet()));
+                    mPendingWrites.clear();
+                    mPendingUsage.clear();
+                    return true;
                 }
-                db.setTransactionSuccessful();
-            } catch (Exception e) {
-                result = false;
             } finally {
-                db.endTransaction();
-                db.close();
+                dispatchChanges();
+            }
+        }
+
+        /**
+         * Get the in-memory usage of components for a key, load it from
+         * the database if it is not loaded yet.
+         *
+         * @param key to get the usage.
+         *
+         * @return Map of the component usage for this key.
+         */
+        private Map<String, Usage> getUsageCache(String key) {
+            Map<String, Usage> usage = mUsageCache.get(key);
+
+            if (usage == null) {
+                usage = new HashMap<String, Usage>();
+
+                Cursor cursor = getDatabase().query(TABLE_USAGE,
+                        new String[] { COL_COMPONENT, COL_SCORE, COL_UPDATED },
+                        COL_KEY + " = ?", new String[] { key }, null, null, null);
+                if (cursor != null) {
+                    while (cursor.moveToNext()) {
+                        usage.put(cursor.getString(0),
+                                new Usage(cursor.getDouble(1), cursor.getLong(2)));
+                    }
+                    cursor.close();
+                }
+
+                mUsageCache.put(key, usage);
+            }
+
+            return usage;
+        }
+
+        /**
+         * Record a launch of the component for the supplied key. Score of
+         * the component will be decayed with time and incremented by one.
+         * It will be written to the database asynchronously.
+         *
+         * @param key for which the component has been launched.
+         * @param component The component that has been launched.
+         *
+         * @see #getUsage(String)
+         */
+        public synchronized void recordLaunch(String key, @NonNull ComponentName component) {
+            String usageKey = String.valueOf(key);
+            String componentName = component.flattenToString();
+            long now = System.currentTimeMillis();
+
+            Map<String, Usage> usage = getUsageCache(usageKey);
+            Usage entry = usage.get(componentName);
+            if (entry == null) {
+                entry = new Usage(0, now);
+                usage.put(componentName, entry);
+            }
+
+            entry.score = entry.getScore(now) + 1;
+            entry.updated = now;
+
+            mPendingUsage.put(new Pair<String, String>(usageKey, componentName), entry);
+            scheduleFlush();
+        }
+
+        /**
+         * Retrieve the decayed usage scores of the components launched for
+         * the supplied key.
+         *
+         * @param key to retrieve usage.
+         *
+         * @return Map of flattened component names and their scores.
+         *
+         * @see ComponentName#flattenToString()
+         */
+        public synchronized Map<String, Double> getUsage(String key) {
+            Map<String, Double> scores = new HashMap<String, Double>();
+            long now = System.currentTimeMillis();
+
+            for (Map.Entry<String, Usage> entry
+                    : getUsageCache(String.valueOf(key)).entrySet()) {
+                scores.put(entry.getKey(), entry.getValue().getScore(now));
             }
 
-            return result;
+            return scores;
         }
 
         /**
@@ -171,11 +1204,20 @@ public class Associations {
          * @return <code>true</code> if deletes successfully.
          */
         public boolean delete(String key) {
-            SQLiteDatabase db = getWritableDatabase();
-            int count = db.delete(TABLE_NAME, COL_KEY + "='" + key + "'", null);
-            db.close();
+            try {
+                synchronized (this) {
+                    getCache();
+                    getDatabase();
+                    executeDelete(key);
+                    cacheRemove(String.valueOf(key));
+                    mPendingWrites.remove(String.valueOf(key));
+                    addChangedKeys(Collections.singleton(String.valueOf(key)));
 
-            return count != -1;
+                    return true;
+                }
+            } finally {
+                dispatchChanges();
+            }
         }
 
         /**
@@ -186,25 +1228,43 @@ public class Associations {
          * @return <code>true</code> if deletes successfully.
          */
         public boolean delete(String... keys) {
-            SQLiteDatabase db = getWritableDatabase();
-            boolean result = true;
             try {
-                db.beginTransaction();
-                for (String key : keys) {
-                    if (key == null) {
-                        continue;
+                synchronized (this) {
+                    getCache();
+                    SQLiteDatabase db = getDatabase();
+                    boolean result = true;
+                    try {
+                        db.beginTransaction();
+                        for (String key : keys) {
+                            if (key == null) {
+                                continue;
+                            }
+                            executeDelete(key);
+                        }
+                        db.setTransactionSuccessful();
+                    } catch (Exception e) {
+                        result = false;
+                    } finally {
+                        db.endTransaction();
+                    }
+
+                    if (result) {
+                        Set<String> changedKeys = new HashSet<String>();
+                        for (String key : keys) {
+                            if (key != null) {
+                                cacheRemove(key);
+                                mPendingWrites.remove(key);
+                                changedKeys.add(key);
+                            }
+                        }
+                        addChangedKeys(changedKeys);
                     }
-                    db.delete(TABLE_NAME, COL_KEY + "='" + key + "'", null);
+
+                    return result;
                 }
-                db.setTransactionSuccessful();
-            } catch (Exception e) {
-                result = false;
             } finally {
-                db.endTransaction();
-                db.close();
+                dispatchChanges();
             }
-
-            return result;
         }
 
         /**
@@ -214,8 +1274,8 @@ public class Associations {
          *
          * @return <code>true</code> key of same name already exist.
          */
-        public boolean contains(String key) {
-            return get(key) != null;
+        public synchronized boolean contains(String key) {
+            return getCache().containsKey(String.valueOf(key));
         }
 
         /**
@@ -225,56 +1285,196 @@ public class Associations {
          *
          * @return Value of the key.
          */
-        public String get(String key) {
-            SQLiteDatabase db = getReadableDatabase();
-            Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_NAME +
-                    " WHERE " + COL_KEY + " = '" + key + "'", null);
+        public synchronized String get(String key) {
+            return getCache().get(String.valueOf(key));
+        }
 
-            if (cursor == null) {
-                db.close();
-                return null;
-            }
+        /**
+         * Clear all the entries and associations in the database.
+         *
+         * @param showToast <code>true</code> to show a toast to notify
+         * user.
+         */
+        public boolean clearAll(boolean showToast) {
+            try {
+                synchronized (this) {
+                    Map<String, String> cache = getCache();
+                    getDatabase().execSQL("DELETE FROM " + TABLE_NAME);
+                    Set<String> keys = new HashSet<String>(cache.keySet());
+                    cache.clear();
+                    mPendingWrites.clear();
+                    addChangedKeys(keys);
 
-            cursor.moveToFirst();
-            if (cursor.getCount() == 0) {
-                db.close();
-                return null;
+                    if (showToast) {
+                        Toast.makeText(context, com.pranavpandey.smallapp.R.string.sas_clear_defaults_reset,
+                                Toast.LENGTH_SHORT).show();
+                    }
+                    return true;
+                }
+            } finally {
+                dispatchChanges();
             }
+        }
+
+        /**
+         * Export all the associations to a compact binary snapshot. It
+         * contains a header with magic number, format version and no. of
+         * entries followed by the length-prefixed <key, value> pairs.
+         * Pending asynchronous writes will be flushed before exporting.
+         * Stream will not be closed after writing.
+         *
+         * @param outputStream to write the snapshot.
+         *
+         * @return No. of exported entries.
+         *
+         * @throws IOException if an error occurs while writing.
+         *
+         * @see #importAssociations(InputStream)
+         */
+        public int exportAssociations(@NonNull OutputStream outputStream)
+                throws IOException {
+            try {
+                synchronized (this) {
+                    flush();
+
+                    Map<String, String> cache = getCache();
+                    DataOutputStream out = new DataOutputStream(
+                            new BufferedOutputStream(outputStream));
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeInt(SNAPSHOT_VERSION);
+                    out.writeInt(cache.size());
 
-            String value = cursor.getString(1);
-            cursor.close();
-            db.close();
+                    for (Map.Entry<String, String> entry : cache.entrySet()) {
+                        out.writeUTF(entry.getKey());
+                        out.writeUTF(entry.getValue());
+                    }
+                    out.flush();
 
-            return value;
+                    return cache.size();
+                }
+            } finally {
+                dispatchChanges();
+            }
         }
 
         /**
-         * Clear all the entries and associations in the database.
+         * Import the associations from a snapshot created by
+         * {@link #exportAssociations(OutputStream)}. All the entries will be
+         * inserted in a single transaction so, either all or none of them
+         * will be saved. Existing associations with the same keys will be
+         * replaced. Stream is buffered while reading so, it should not be
+         * used to read any other data after the snapshot and will not be
+         * closed after reading.
          *
-         * @param showToast <code>true</code> to show a toast to notify
-         * user.
+         * @param inputStream to read the snapshot.
+         *
+         * @return No. of imported entries.
+         *
+         * @throws IOException if the snapshot is invalid or an error occurs
+         * while reading.
          */
-        public boolean clearAll(boolean showToast) {
-            SQLiteDatabase db = getWritableDatabase();
-            db.execSQL("DELETE FROM " + TABLE_NAME);
-            db.close();
+        public int importAssociations(@NonNull InputStream inputStream)
+                throws IOException {
+            try {
+                synchronized (this) {
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+                    if (in.readInt() != SNAPSHOT_MAGIC) {
+                        throw new IOException("Invalid associations snapshot");
+                    }
+
+                    int version = in.readInt();
+                    if (version < 1 || version > SNAPSHOT_VERSION) {
+                        throw new IOException("Unsupported associations snapshot version: " + version);
+                    }
+
+                    int count = in.readInt();
+                    if (count < 0) {
+                        throw new IOException("Invalid associations snapshot size: " + count);
+                    }
+
+                    getCache();
+                    SQLiteDatabase db = getDatabase();
+                    Map<String, String> entries = new HashMap<String, String>();
 
-            if (showToast) {
-                Toast.makeText(context, com.pranavpandey.smallapp.R.string.sas_clear_defaults_reset,
-                        Toast.LENGTH_SHORT).show();
+                    try {
+                        db.beginTransaction();
+                        for (int i = 0; i < count; i++) {
+                            String key = in.readUTF();
+                            String value = in.readUTF();
+
+                            executePut(key, value);
+                            entries.put(key, value);
+                        }
+                        db.setTransactionSuccessful();
+                    } finally {
+                        db.endTransaction();
+                    }
+
+                    for (Map.Entry<String, String> entry : entries.entrySet()) {
+                        cachePut(entry.getKey(), entry.getValue());
+                        mPendingWrites.remove(entry.getKey());
+                    }
+                    addChangedKeys(entries.keySet());
+
+                    return count;
+                }
+            } finally {
+                dispatchChanges();
             }
-            return true;
         }
 
         /**
          * @return No. of entries in the database.
          */
-        public long count() {
-            SQLiteDatabase db = getWritableDatabase();
-            long count = DatabaseUtils.queryNumEntries(db, TABLE_NAME);
-            db.close();
+        public synchronized long count() {
+            return getCache().size();
+        }
+
+        /**
+         * Interface definition for a step to migrate the database from one
+         * version to the next version. It will be called inside the upgrade
+         * transaction.
+         *
+         * @see #MIGRATIONS
+         */
+        interface Migration {
+
+            /**
+             * Called to migrate the database to the next version.
+             *
+             * @param db Database to be migrated.
+             */
+            void migrate(SQLiteDatabase db);
+        }
 
-            return count;
+        /**
+         * Class to hold the usage score of a component.
+         */
+        private static class Usage {
+
+            /**
+             * Score at the time of last update.
+             */
+            double score;
+
+            /**
+             * Time of the last update in milliseconds.
+             */
+            long updated;
+
+            Usage(double score, long updated) {
+                this.score = score;
+                this.updated = updated;
+            }
+
+            /**
+             * @param now Current time in milliseconds.
+             *
+             * @return Score decayed up to the supplied time.
+             */
+            double getScore(long now) {
+                return score * Math.pow(0.5, (now - updated) / (double) USAGE_HALF_LIFE);
+            }
         }
     }
 }
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2016 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.smallapp.database;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.pranavpandey.smallapp.SmallUtils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.NonNull;
+import android.support.v4.util.Pair;
+import android.util.Log;
+
+/**
+ * Benchmarks to measure the performance of {@link Associations} on a
+ * device. They run on a scratch database so that the saved associations
+ * will not be modified and the registered listeners will not be notified.
+ *
+ * <p>Each benchmark blocks until it has been completed so, call it from
+ * a background thread of a debug build and check the results in the
+ * logcat.</p>
+ */
+public class AssociationsBenchmark {
+
+    /**
+     * Tag to log the results.
+     */
+    private static final String TAG = "AssociationsBenchmark";
+
+    /**
+     * Name of the scratch database.
+     */
+    private static final String DB_NAME = "AssociationsBenchmark";
+
+    /**
+     * No. of associations saved before measuring the lookups.
+     */
+    private static final int LOOKUP_KEYS = 64;
+
+    /**
+     * Default no. of associations to measure the snapshot export and
+     * import throughput.
+     */
+    public static final int SNAPSHOT_ROWS = 100000;
+
+    /**
+     * Cannot be instantiated.
+     */
+    private AssociationsBenchmark() {
+    }
+
+    /**
+     * Compare the lookups per second by opening and closing the database
+     * for each lookup, as the older versions did, and by using the shared
+     * connection and in-memory copy of the {@link Associations.SQLiteHelper}.
+     *
+     * @param context to open the scratch database.
+     * @param lookups The no. of lookups to be performed in each mode.
+     *
+     * @return Lookups per second with open and close for each lookup and
+     * with the shared connection respectively.
+     */
+    public static double[] benchmarkLookups(@NonNull Context context, int lookups) {
+        context.deleteDatabase(DB_NAME);
+        Associations.SQLiteHelper helper =
+                new Associations.SQLiteHelper(context, DB_NAME, false);
+
+        try {
+            List<Pair<String, ?>> pairs = new ArrayList<Pair<String, ?>>(LOOKUP_KEYS);
+            for (int i = 0; i < LOOKUP_KEYS; i++) {
+                pairs.add(new Pair<String, Object>(getKey(i), getValue(i)));
+            }
+            helper.put(pairs);
+            helper.close();
+
+            String path = context.getDatabasePath(DB_NAME).getPath();
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                SQLiteDatabase db = SQLiteDatabase.openDatabase(path, null,
+                        SQLiteDatabase.OPEN_READONLY);
+                Cursor cursor = db.rawQuery("SELECT intent_package FROM associations "
+                        + "WHERE intent_type = ?", new String[] { getKey(i % LOOKUP_KEYS) });
+                cursor.moveToFirst();
+                cursor.close();
+                db.close();
+            }
+            double perCall = getRate(lookups, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                helper.get(getKey(i % LOOKUP_KEYS));
+            }
+            double shared = getRate(lookups, System.nanoTime() - start);
+
+            Log.i(TAG, String.format("Lookups/sec: open and close %.0f, shared %.0f",
+                    perCall, shared));
+            return new double[] { perCall, shared };
+        } finally {
+            helper.close();
+            context.deleteDatabase(DB_NAME);
+        }
+    }
+
+    /**
+     * Measure the latency of single row writes with the default rollback
+     * journal and with write-ahead logging along with the pragmas used by
+     * {@link Associations.SQLiteHelper}.
+     *
+     * @param context to open the scratch database.
+     * @param writes The no. of writes to be performed in each mode.
+     * @param wal <code>true</code> to use write-ahead logging and
+     * <code>synchronous = NORMAL</code>, otherwise the rollback journal
+     * with <code>synchronous = FULL</code>.
+     *
+     * @return 50th, 90th and 99th percentile of the write latency in
+     * nanoseconds.
+     */
+    public static long[] benchmarkWrites(@NonNull Context context, int writes, boolean wal) {
+        context.deleteDatabase(DB_NAME);
+        SQLiteDatabase db = context.openOrCreateDatabase(DB_NAME, Context.MODE_PRIVATE, null);
+
+        try {
+            if (wal) {
+                db.enableWriteAheadLogging();
+                db.execSQL("PRAGMA synchronous = NORMAL");
+            } else {
+                // New database uses the rollback journal by default on the older devices.
+                if (SmallUtils.isJellyBean()) {
+                    db.disableWriteAheadLogging();
+                }
+                db.execSQL("PRAGMA synchronous = FULL");
+            }
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS associations (intent_type text "
+                    + "primary key not null, intent_package text null)");
+            SQLiteStatement statement = db.compileStatement("INSERT OR REPLACE INTO "
+                    + "associations (intent_type, intent_package) VALUES (?, ?)");
+
+            long[] latencies = new long[writes];
+            for (int i = 0; i < writes; i++) {
+                statement.bindString(1, getKey(i % LOOKUP_KEYS));
+                statement.bindString(2, getValue(i));
+
+                long start = System.nanoTime();
+                statement.executeInsert();
+                latencies[i] = System.nanoTime() - start;
+            }
+            statement.close();
+
+            Arrays.sort(latencies);
+            long[] percentiles = new long[] { getPercentile(latencies, 50),
+                    getPercentile(latencies, 90), getPercentile(latencies, 99) };
+            Log.i(TAG, String.format("Write latency (%s) in us: p50 %d, p90 %d, p99 %d",
+                    wal ? "wal" : "rollback", percentiles[0] / 1000,
+                    percentiles[1] / 1000, percentiles[2] / 1000));
+            return percentiles;
+        } finally {
+            db.close();
+            context.deleteDatabase(DB_NAME);
+        }
+    }
+
+    /**
+     * Measure the throughput of exporting the associations to a snapshot
+     * and importing them again into an empty database. Snapshot is kept
+     * in memory so that only the database is measured.
+     *
+     * @param context to open the scratch database.
+     * @param rows The no. of associations, e.g. {@link #SNAPSHOT_ROWS}.
+     *
+     * @return Exported and imported rows per second respectively.
+     *
+     * @throws IOException if the snapshot cannot be written or read.
+     */
+    public static double[] benchmarkSnapshot(@NonNull Context context, int rows)
+            throws IOException {
+        context.deleteDatabase(DB_NAME);
+        Associations.SQLiteHelper helper =
+                new Associations.SQLiteHelper(context, DB_NAME, false);
+
+        try {
+            List<Pair<String, ?>> pairs = new ArrayList<Pair<String, ?>>(rows);
+            for (int i = 0; i < rows; i++) {
+                pairs.add(new Pair<String, Object>(getKey(i), getValue(i)));
+            }
+            helper.put(pairs);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            long start = System.nanoTime();
+            int exported = helper.exportAssociations(outputStream);
+            double exportRate = getRate(exported, System.nanoTime() - start);
+
+            helper.clearAll(false);
+            start = System.nanoTime();
+            int imported = helper.importAssociations(
+                    new ByteArrayInputStream(outputStream.toByteArray()));
+            double importRate = getRate(imported, System.nanoTime() - start);
+
+            Log.i(TAG, String.format("Snapshot of %d rows (%d bytes), rows/sec: "
+                    + "export %.0f, import %.0f", imported, outputStream.size(),
+                    exportRate, importRate));
+            return new double[] { exportRate, importRate };
+        } finally {
+            helper.close();
+            context.deleteDatabase(DB_NAME);
+        }
+    }
+
+    /**
+     * @param sorted Sorted values.
+     * @param percentile The percentile to be returned.
+     *
+     * @return Value at the supplied percentile or <code>0</code> if there
+     * is no value.
+     */
+    private static long getPercentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    /**
+     * @param index Index of the association.
+     *
+     * @return Key of the association at the supplied index.
+     */
+    private static String getKey(int index) {
+        return "benchmark/type-" + index;
+    }
+
+    /**
+     * @param index Index of the association.
+     *
+     * @return Value of the association at the supplied index.
+     */
+    private static String getValue(int index) {
+        return "com.example.benchmark" + index;
+    }
+
+    /**
+     * @param count The no. of operations.
+     * @param durationNanos Time taken by the operations in nanoseconds.
+     *
+     * @return Operations per second.
+     */
+    private static double getRate(int count, long durationNanos) {
+        return count * 1e9 / Math.max(1, durationNanos);
+    }
+}
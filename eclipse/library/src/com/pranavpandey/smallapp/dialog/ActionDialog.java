@@ -20,29 +20,35 @@ import com.pranavpandey.smallapp.R;
 import com.pranavpandey.smallapp.SmallUtils;
 import com.pranavpandey.smallapp.view.ColoredImageView;
 import com.pranavpandey.smallapp.view.ColoredTextView;
+import com.pranavpandey.smallapp.view.HeaderGridListView;
 import com.pranavpandey.smallapp.view.HeaderGridView;
+import com.pranavpandey.smallapp.view.ViewPool;
 
 import android.app.AlertDialog;
 import android.app.Dialog;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.graphics.drawable.Drawable;
+import android.os.IBinder;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.StringRes;
 import android.support.v4.content.ContextCompat;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.View.OnClickListener;
+import android.widget.AbsListView;
 import android.widget.Adapter;
 import android.widget.AdapterView;
 import android.widget.AdapterView.OnItemClickListener;
 import android.widget.CompoundButton;
+import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.ListAdapter;
 import android.widget.ListView;
-import android.widget.ScrollView;
 import android.widget.TextView;
 import android.widget.WrapperListAdapter;
 
@@ -119,6 +125,81 @@ public class ActionDialog {
                                          boolean isChecked, TextView textView);
     }
 
+    /**
+     * Interface definition for an adapter which can be filtered in the
+     * search mode of this dialog.
+     *
+     * @see #setSearchable(boolean)
+     * @see com.pranavpandey.smallapp.adapter.SearchIndex
+     */
+    public interface SearchableAdapter extends ListAdapter {
+
+        /**
+         * Called when the search query has been changed to filter the
+         * items. An empty query should display all the items.
+         *
+         * @param query The query to be searched.
+         *
+         * @return The no. of items matched by the query.
+         */
+        public int search(@NonNull String query);
+    }
+
+    /**
+     * Interface definition for a callback to be invoked when some items
+     * of an adapter have been changed in place.
+     *
+     * @see IncrementalAdapter
+     */
+    public interface OnItemRangeChangedListener {
+
+        /**
+         * Called when the items in a range have been changed without
+         * adding, removing or moving any item.
+         *
+         * @param positionStart Position of the first changed item.
+         * @param itemCount The no. of changed items.
+         */
+        public void onItemRangeChanged(int positionStart, int itemCount);
+    }
+
+    /**
+     * Interface definition for an adapter which can report the changed
+     * items so that only their visible rows or cells will be bound again.
+     * Structural changes should still be notified via
+     * <code>notifyDataSetChanged()</code>.
+     *
+     * @see #setEngine(Engine)
+     */
+    public interface IncrementalAdapter extends ListAdapter {
+
+        /**
+         * Set a listener to be notified when some items have been changed
+         * in place.
+         *
+         * @param listener The listener to be set or <code>null</code>.
+         */
+        public void setOnItemRangeChangedListener(@Nullable OnItemRangeChangedListener listener);
+    }
+
+    /**
+     * Interface definition for an adapter which can prepare the data of
+     * its items before they will be displayed in the
+     * {@link Engine#INCREMENTAL} engine.
+     *
+     * @see #setEngine(Engine)
+     */
+    public interface PrefetchAdapter extends ListAdapter {
+
+        /**
+         * Called on the UI thread when an item is about to be scrolled into
+         * view. It should not block, load the data in the background instead.
+         *
+         * @param position Position of the item to be prefetched.
+         */
+        public void prefetch(int position);
+    }
+
     /**
      * Enum to define the type of this dialog. Either a
      * <code>List</code> or <code>Grid</code>.
@@ -143,6 +224,29 @@ public class ActionDialog {
         GRID
     }
 
+    /**
+     * Enum to define the rendering engine of a {@link Type#LIST} dialog.
+     *
+     * @see Engine#DEFAULT
+     * @see Engine#INCREMENTAL
+     */
+    public static enum Engine {
+
+        /**
+         * Actions will be displayed by the list adapter with extra info as
+         * list header and the check button below the list.
+         */
+        DEFAULT,
+
+        /**
+         * Extra info, actions, check button and footer will be displayed as
+         * separate view types of a single list. Rows will be bound again only
+         * for the changed items of an {@link IncrementalAdapter} and upcoming
+         * items of a {@link PrefetchAdapter} will be prefetched while scrolling.
+         */
+        INCREMENTAL
+    }
+
     /**
      * Context to retrieve resources and to build the
      * final {@link ActionDialog}.
@@ -166,6 +270,16 @@ public class ActionDialog {
      */
     private Type mType;
 
+    /**
+     * Rendering engine of the {@link Type#LIST} based on {@link #Engine}.
+     */
+    private Engine mEngine = Engine.DEFAULT;
+
+    /**
+     * Rendering engine for which the views have been inflated.
+     */
+    private Engine mInflatedEngine;
+
     /**
      * View of this dialog.
      */
@@ -176,11 +290,60 @@ public class ActionDialog {
      */
     private HeaderGridView mActionGridView;
 
+    /**
+     * <code>Grid</code> to display all the action items along with the
+     * extra info as a scrolling header.
+     */
+    private HeaderGridListView mActionGridListView;
+
     /**
      * <code>List</code> to display all the action items.
      */
     private ListView mActionListView;
 
+    /**
+     * Adapter to display the rows of the {@link Engine#INCREMENTAL} engine.
+     */
+    private ActionRowAdapter mRowAdapter;
+
+    /**
+     * Listener to bind only the changed items of an {@link IncrementalAdapter}
+     * again in the default list or grid.
+     */
+    private final OnItemRangeChangedListener mItemRangeChangedListener =
+            new OnItemRangeChangedListener() {
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            if (mActionGridListView != null) {
+                mActionGridListView.notifyItemRangeChanged(positionStart, itemCount);
+            } else if (mType == Type.GRID && mActionGridView != null) {
+                if (!rebindItems(mActionGridView, mAdapter, 0, positionStart, itemCount)) {
+                    mActionGridView.invalidateViews();
+                }
+            } else if (mType == Type.LIST && mActionListView != null) {
+                if (!rebindItems(mActionListView, mAdapter,
+                        mActionListView.getHeaderViewsCount(), positionStart, itemCount)) {
+                    mActionListView.invalidateViews();
+                }
+            }
+        }
+    };
+
+    /**
+     * Check button layout below the <code>List</code> or <code>Grid</code>.
+     */
+    private View mCheckLayout;
+
+    /**
+     * Check button row of the {@link Engine#INCREMENTAL} engine.
+     */
+    private View mCheckRowView;
+
+    /**
+     * View to display as footer in the {@link Engine#INCREMENTAL} engine.
+     */
+    private @Nullable View mFooterView;
+
     /**
      * Adapter in the {@link Type#LIST} or {@link Type#GRID}.
      */
@@ -252,6 +415,44 @@ public class ActionDialog {
      */
     private boolean mCheckButtonState = false;
 
+    /**
+     * <code>true</code> if a search box will be displayed to filter the
+     * action items. It requires a {@link SearchableAdapter}.
+     */
+    private boolean mSearchable = false;
+
+    /**
+     * <code>true</code> to keep the inflated views and the dialog after it
+     * has been dismissed so that they can be bound again on the next show.
+     */
+    private boolean mReusable = false;
+
+    /**
+     * Header view of the {@link Type#LIST} to display extra info.
+     */
+    private View mHeaderView;
+
+    /**
+     * <code>true</code> if the search box has been initialized for the
+     * inflated views.
+     */
+    private boolean mSearchInitialized = false;
+
+    /**
+     * Window token for which the dialog has been created.
+     */
+    private IBinder mWindowToken;
+
+    /**
+     * Root view to which the dialog is attached.
+     */
+    private View mRootView;
+
+    /**
+     * Listener to release a reusable dialog when its window is destroyed.
+     */
+    private View.OnAttachStateChangeListener mDetachListener;
+
     /**
      * LayoutInflater to inflate views.
      */
@@ -275,47 +476,94 @@ public class ActionDialog {
 
     /**
      * Creates a {@link ActionDialog} with the arguments supplied to the
-     * constructor by using the supplied adapter.
+     * constructor by using the supplied adapter. If {@link #mReusable} is
+     * enabled and the dialog has been created before for the same window
+     * then, the existing views and dialog will be bound again instead of
+     * inflating them.
      *
      * @param rootView Root view to which the dialog should attach.
+     *
+     * @see #setReusable(boolean)
      */
     public void createDialog(@NonNull View rootView) {
-        if (mType == Type.GRID) {
-            mView = mInflater.inflate(R.layout.sas_dialog_action_grid,
-                    new LinearLayout(mContext), false);
-            mActionGridView = (HeaderGridView) mView.findViewById(R.id.action_grid);
+        long start = DialogMetrics.begin(DialogMetrics.Phase.INFLATE);
 
-            if (mExtraInfo) {
-                ((ColoredTextView) mView.findViewById(R.id.extra_info_desc))
-                        .setText(mExtraInfoText);
-                ((ColoredImageView) mView.findViewById(R.id.extra_info_icon))
-                        .setImageDrawable(mExtraInfoIcon);
-                mActionGridView.setExpanded(true);
+        if (mReusable && mDialog != null && mView != null
+                && rootView.getWindowToken() == mWindowToken && !isLayoutChanged()) {
+            bindViews();
+        } else {
+            inflateViews();
+            bindViews();
 
-                if (mExtraInfoListener != null) {
-                    mView.findViewById(R.id.extra_info_layout).setOnClickListener(new OnClickListener() {
-                        @Override
-                        public void onClick(View v) {
-                            mExtraInfoListener.onExtraInfoClick(v);
+            mWindowToken = rootView.getWindowToken();
+            mDialog = SmallUtils.createDialog(mDialogBuilder.create(),
+                    mWindowToken, mView);
 
-                            autoDismiss();
-                        }
-                    });
-                }
+            if (mReusable) {
+                releaseOnDetach(rootView);
+            }
+        }
+
+        DialogMetrics.end(this, DialogMetrics.Phase.INFLATE, start);
+    }
+
+    /**
+     * @return <code>true</code> if the inflated views cannot display the
+     * current values, i.e. extra info has been added or removed for the
+     * {@link Type#GRID} or the engine has been changed.
+     */
+    private boolean isLayoutChanged() {
+        return (mType == Type.GRID && (mActionGridListView != null) != mExtraInfo)
+                || mInflatedEngine != mEngine;
+    }
+
+    /**
+     * Inflate the views of this dialog and set the listeners which do not
+     * depend on the values to be bound.
+     */
+    private void inflateViews() {
+        mHeaderView = null;
+        if (mRowAdapter != null) {
+            mRowAdapter.detach();
+            mRowAdapter = null;
+        }
+        mCheckRowView = null;
+        mSearchInitialized = false;
+        mInflatedEngine = mEngine;
 
-                mView.findViewById(R.id.extra_info_layout).setVisibility(View.VISIBLE);
+        if (mType == Type.GRID && mExtraInfo) {
+            mView = mInflater.inflate(R.layout.sas_dialog_action_grid_header,
+                    new LinearLayout(mContext), false);
+            mActionGridView = null;
+            mActionGridListView = (HeaderGridListView)
+                    mView.findViewById(R.id.action_grid_list);
+            mActionGridListView.setOnItemClickListener(new OnItemClickListener() {
+                @Override
+                public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                    // Only the header is clickable, rows dispatch their item clicks.
+                    if (mExtraInfoListener != null) {
+                        mExtraInfoListener.onExtraInfoClick(view);
 
-                final ScrollView scrollView = (ScrollView)
-                        mView.findViewById(R.id.action_grid_scroll);
-                scrollView.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        scrollView.smoothScrollTo(0, 0);
+                        autoDismiss();
+                    }
+                }
+            });
+            mActionGridListView.setOnGridItemClickListener(new OnItemClickListener() {
+                @Override
+                public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                    if (mActionItemListener != null) {
+                        mActionItemListener.onActionItemClick(mDialog, mAdapter,
+                                parent, view, position, id);
                     }
-                });
-            }
 
-            mActionGridView.setAdapter(mAdapter);
+                    autoDismiss();
+                }
+            });
+        } else if (mType == Type.GRID) {
+            mView = mInflater.inflate(R.layout.sas_dialog_action_grid,
+                    new LinearLayout(mContext), false);
+            mActionGridListView = null;
+            mActionGridView = (HeaderGridView) mView.findViewById(R.id.action_grid);
             mActionGridView.setOnItemClickListener(new OnItemClickListener() {
                 @Override
                 public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
@@ -331,24 +579,24 @@ public class ActionDialog {
             mView = mInflater.inflate(R.layout.sas_dialog_action_list,
                     new LinearLayout(mContext), false);
             mActionListView = (ListView) mView.findViewById(R.id.action_list);
-
-            if (mExtraInfo) {
-                View mHeader = mInflater.inflate(R.layout.sas_dialog_extra_info_list,
-                        mActionListView, false);
-                ((ColoredTextView) mHeader.findViewById(R.id.extra_info_desc))
-                        .setText(mExtraInfoText);
-                ((ColoredImageView) mHeader.findViewById(R.id.extra_info_icon))
-                        .setImageDrawable(mExtraInfoIcon);
-
-                mActionListView.addHeaderView(mHeader, null,
-                        mExtraInfoListener != null ? true: false);
-            }
-
-            mActionListView.setAdapter(mAdapter);
             mActionListView.setOnItemClickListener(new OnItemClickListener() {
                 @Override
                 public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                    if (mExtraInfo) {
+                    if (mRowAdapter != null) {
+                        if (mRowAdapter.isHeader(position)) {
+                            if (mExtraInfoListener != null) {
+                                mExtraInfoListener.onExtraInfoClick(view);
+
+                                autoDismiss();
+                            }
+                            return;
+                        }
+
+                        position = mRowAdapter.getItemPosition(position);
+                        if (position == -1) {
+                            return;
+                        }
+                    } else if (mHeaderView != null) {
                         position--;
                         if (position < 0) {
                             if (mExtraInfoListener != null) {
@@ -370,32 +618,316 @@ public class ActionDialog {
             });
         }
 
-        if (mCheckButtonLayout) {
-            final TextView chkText = (TextView) mView.findViewById(R.id.check_text);
-            final View chkLayout = (View) mView.findViewById(R.id.check_layout);
-            final CompoundButton chkButton = (CompoundButton) mView.findViewById(R.id.check_button);
+        mCheckLayout = mView.findViewById(R.id.check_layout);
+    }
 
-            chkText.setText(mCheckButtonText);
-            chkLayout.setVisibility(View.VISIBLE);
+    /**
+     * Bind the adapter, extra info header, check button and search box to
+     * the inflated views.
+     */
+    private void bindViews() {
+        if (mActionGridListView != null) {
+            // Headers cannot be changed while an adapter is set on older devices.
+            mActionGridListView.setGridAdapter(null);
+            if (mHeaderView == null) {
+                mHeaderView = ViewPool.getInstance().obtain(mInflater,
+                        R.layout.sas_dialog_extra_info_grid, mActionGridListView);
+            } else {
+                mActionGridListView.removeHeaderView(mHeaderView);
+            }
 
-            chkLayout.setOnClickListener(new OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    mCheckButtonState = !chkButton.isChecked();
-                    chkButton.setChecked(mCheckButtonState);
+            ((ColoredTextView) mHeaderView.findViewById(R.id.extra_info_desc))
+                    .setText(mExtraInfoText);
+            ((ColoredImageView) mHeaderView.findViewById(R.id.extra_info_icon))
+                    .setImageDrawable(mExtraInfoIcon);
+            mHeaderView.setVisibility(View.VISIBLE);
+
+            mActionGridListView.addHeaderView(mHeaderView, null,
+                    mExtraInfoListener != null ? true: false);
+            mActionGridListView.setGridAdapter(mAdapter);
+            mActionGridListView.setSelection(0);
+        } else if (mType == Type.GRID) {
+            mActionGridView.setAdapter(mAdapter);
+        } else if (mEngine == Engine.INCREMENTAL) {
+            bindRows();
+        } else {
+            // Headers cannot be changed while an adapter is set on older devices.
+            mActionListView.setAdapter(null);
+            if (mHeaderView != null) {
+                mActionListView.removeHeaderView(mHeaderView);
+            }
 
-                    if (mCheckButtonListener != null) {
-                        mCheckButtonListener.onCheckButtonChanged(chkLayout, chkButton,
-                                chkButton.isChecked(), chkText);
-                    }
+            if (mExtraInfo) {
+                if (mHeaderView == null) {
+                    mHeaderView = ViewPool.getInstance().obtain(mInflater,
+                            R.layout.sas_dialog_extra_info_list, mActionListView);
                 }
-            });
 
-            chkButton.setChecked(mCheckButtonState);
+                ((ColoredTextView) mHeaderView.findViewById(R.id.extra_info_desc))
+                        .setText(mExtraInfoText);
+                ((ColoredImageView) mHeaderView.findViewById(R.id.extra_info_icon))
+                        .setImageDrawable(mExtraInfoIcon);
+
+                mActionListView.addHeaderView(mHeaderView, null,
+                        mExtraInfoListener != null ? true: false);
+            } else {
+                mHeaderView = null;
+            }
+
+            mActionListView.setAdapter(mAdapter);
+        }
+
+        if (mRowAdapter != null) {
+            // Check button will be displayed as a row of the list.
+            mCheckLayout.setVisibility(View.GONE);
+
+            if (mCheckButtonLayout) {
+                bindCheckLayout(mCheckRowView);
+            }
+        } else if (mCheckButtonLayout) {
+            bindCheckLayout(mCheckLayout);
+        } else if (mReusable) {
+            mCheckLayout.setVisibility(View.GONE);
+        }
+
+        if (mSearchable && mAdapter instanceof SearchableAdapter) {
+            setupSearch((SearchableAdapter) mAdapter);
+        } else if (mSearchInitialized) {
+            mView.findViewById(R.id.frame_search).setVisibility(View.GONE);
+        }
+
+        bindItemRangeListener();
+    }
+
+    /**
+     * Listen the in place changes of an {@link IncrementalAdapter} displayed
+     * by the default list or grid. {@link Engine#INCREMENTAL} engine sets
+     * its own listener.
+     */
+    private void bindItemRangeListener() {
+        if (mRowAdapter == null && mAdapter instanceof IncrementalAdapter) {
+            ((IncrementalAdapter) mAdapter).setOnItemRangeChangedListener(
+                    mItemRangeChangedListener);
+        }
+    }
+
+    /**
+     * Stop listening the in place changes of the current adapter.
+     */
+    private void unbindItemRangeListener() {
+        if (mAdapter instanceof IncrementalAdapter) {
+            ((IncrementalAdapter) mAdapter).setOnItemRangeChangedListener(null);
+        }
+    }
+
+    /**
+     * Bind the visible items in a range again by reusing their views so
+     * that the other items will not be bound again.
+     *
+     * @param listView The list or grid displaying the items.
+     * @param adapter The adapter for the items.
+     * @param offset No. of views displayed before the items, e.g. headers.
+     * @param positionStart Position of the first changed item.
+     * @param itemCount The no. of changed items.
+     *
+     * @return <code>false</code> if the adapter did not reuse a view so,
+     * all the items should be updated.
+     */
+    static boolean rebindItems(@NonNull AbsListView listView, @NonNull ListAdapter adapter,
+                               int offset, int positionStart, int itemCount) {
+        int firstVisible = listView.getFirstVisiblePosition();
+        for (int i = positionStart; i < positionStart + itemCount; i++) {
+            int position = i + offset;
+            if (position < firstVisible) {
+                continue;
+            }
+
+            View child = listView.getChildAt(position - firstVisible);
+            if (child == null) {
+                break;
+            }
+
+            if (adapter.getView(i, child, listView) != child) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Bind the adapter along with the extra info, check button and footer
+     * rows to the list for the {@link Engine#INCREMENTAL} engine.
+     */
+    private void bindRows() {
+        if (mRowAdapter != null) {
+            mRowAdapter.detach();
+        }
+
+        if (mExtraInfo) {
+            if (mHeaderView == null) {
+                mHeaderView = ViewPool.getInstance().obtain(mInflater,
+                        R.layout.sas_dialog_extra_info_list, mActionListView);
+            }
+
+            ((ColoredTextView) mHeaderView.findViewById(R.id.extra_info_desc))
+                    .setText(mExtraInfoText);
+            ((ColoredImageView) mHeaderView.findViewById(R.id.extra_info_icon))
+                    .setImageDrawable(mExtraInfoIcon);
+        } else {
+            mHeaderView = null;
+        }
+
+        if (mCheckButtonLayout && mCheckRowView == null) {
+            mCheckRowView = ViewPool.getInstance().obtain(mInflater,
+                    R.layout.sas_dialog_check_list, mActionListView);
+        }
+
+        mRowAdapter = new ActionRowAdapter(mAdapter, mHeaderView,
+                mExtraInfoListener != null, mCheckButtonLayout ? mCheckRowView : null,
+                mFooterView);
+        mRowAdapter.attach(mActionListView);
+    }
+
+    /**
+     * Bind the check button text, state and listener to a check button
+     * layout.
+     *
+     * @param chkLayout The check button layout to be bound.
+     */
+    private void bindCheckLayout(final View chkLayout) {
+        final TextView chkText = (TextView) chkLayout.findViewById(R.id.check_text);
+        final CompoundButton chkButton = (CompoundButton) chkLayout.findViewById(R.id.check_button);
+
+        chkText.setText(mCheckButtonText);
+        chkLayout.setVisibility(View.VISIBLE);
+
+        chkLayout.setOnClickListener(new OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                mCheckButtonState = !chkButton.isChecked();
+                chkButton.setChecked(mCheckButtonState);
+
+                if (mCheckButtonListener != null) {
+                    mCheckButtonListener.onCheckButtonChanged(chkLayout, chkButton,
+                            chkButton.isChecked(), chkText);
+                }
+            }
+        });
+
+        chkButton.setChecked(mCheckButtonState);
+    }
+
+    /**
+     * Display the search box to filter the items of the supplied adapter
+     * as the user types. If the search box has been displayed before then,
+     * it will be cleared.
+     *
+     * @param adapter The adapter to be filtered.
+     */
+    private void setupSearch(@NonNull SearchableAdapter adapter) {
+        final EditText editSearch = (EditText) mView.findViewById(R.id.edit_search);
+        final View clearText = mView.findViewById(R.id.btn_clear_text);
+        final TextView noResults = (TextView) mView.findViewById(R.id.txt_no_results);
+
+        adapter.search("");
+        mView.findViewById(R.id.frame_search).setVisibility(View.VISIBLE);
+
+        if (mSearchInitialized) {
+            editSearch.setText(null);
+            return;
+        }
+
+        editSearch.setVisibility(View.VISIBLE);
+        editSearch.setHint(R.string.sas_search);
+        noResults.setText(R.string.sas_search_no_results);
+
+        editSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) { }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) { }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                if (!(mAdapter instanceof SearchableAdapter)) {
+                    return;
+                }
+
+                int count = ((SearchableAdapter) mAdapter).search(s.toString());
+
+                clearText.setVisibility(s.length() > 0 ? View.VISIBLE : View.GONE);
+                noResults.setVisibility(count == 0 ? View.VISIBLE : View.GONE);
+            }
+        });
+
+        clearText.setOnClickListener(new OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                editSearch.setText(null);
+            }
+        });
+
+        mSearchInitialized = true;
+    }
+
+    /**
+     * Release this dialog when the root view will be detached from its
+     * window, i.e. when the window will be destroyed.
+     *
+     * @param rootView Root view to which the dialog is attached.
+     */
+    private void releaseOnDetach(@NonNull View rootView) {
+        if (mRootView != null && mDetachListener != null) {
+            mRootView.removeOnAttachStateChangeListener(mDetachListener);
         }
 
-        mDialog = SmallUtils.createDialog(mDialogBuilder.create(),
-                rootView.getWindowToken(), mView);
+        mRootView = rootView;
+        mDetachListener = new View.OnAttachStateChangeListener() {
+            @Override
+            public void onViewAttachedToWindow(View v) { }
+
+            @Override
+            public void onViewDetachedFromWindow(View v) {
+                release();
+            }
+        };
+        mRootView.addOnAttachStateChangeListener(mDetachListener);
+    }
+
+    /**
+     * Dismiss and release the dialog along with its views so that it will
+     * be created again on the next show. It will be called automatically
+     * for a reusable dialog when its window is destroyed.
+     *
+     * @see #setReusable(boolean)
+     */
+    public void release() {
+        dismissDialog();
+
+        if (mRootView != null && mDetachListener != null) {
+            mRootView.removeOnAttachStateChangeListener(mDetachListener);
+        }
+
+        mDialog = null;
+        mView = null;
+        mHeaderView = null;
+        mActionGridView = null;
+        if (mRowAdapter != null) {
+            mRowAdapter.detach();
+        }
+        unbindItemRangeListener();
+
+        mActionGridListView = null;
+        mActionListView = null;
+        mRowAdapter = null;
+        mCheckLayout = null;
+        mCheckRowView = null;
+        mWindowToken = null;
+        mRootView = null;
+        mDetachListener = null;
+        mSearchInitialized = false;
     }
 
     /**
@@ -414,6 +946,10 @@ public class ActionDialog {
      */
     public ActionDialog setAdapter(@NonNull ListAdapter adapter,
                                    OnActionItemClickListener actionItemListener) {
+        if (mAdapter != adapter) {
+            unbindItemRangeListener();
+        }
+
         this.mAdapter = adapter;
         this.mActionItemListener = actionItemListener;
         return this;
@@ -432,13 +968,24 @@ public class ActionDialog {
      * @see #getAdapter()
      */
     public ActionDialog setAdapter(@NonNull ListAdapter adapter) {
+        if (mAdapter != adapter) {
+            unbindItemRangeListener();
+        }
+
         this.mAdapter = adapter;
 
         if (mType == Type.GRID) {
+            if (mActionGridListView != null) mActionGridListView.setGridAdapter(adapter);
             if (mActionGridView != null) mActionGridView.setAdapter(adapter);
+        } else if (mRowAdapter != null) {
+            bindRows();
         } else {
             if (mActionListView != null) mActionListView.setAdapter(adapter);
         }
+
+        if (mView != null) {
+            bindItemRangeListener();
+        }
         return this;
     }
 
@@ -572,6 +1119,71 @@ public class ActionDialog {
         return this;
     }
 
+    /**
+     * Set the value of {@link #mSearchable}. Search box will be displayed
+     * only if the adapter implements {@link SearchableAdapter}.
+     *
+     * @param isSearchable Value to be set. Either <code>true</code> or <code>false</code>.
+     *
+     * @return ActionDialog object to allow for chaining of calls to set
+     * methods.
+     */
+    public ActionDialog setSearchable(boolean isSearchable) {
+        this.mSearchable = isSearchable;
+        return this;
+    }
+
+    /**
+     * Set the rendering engine of a {@link Type#LIST} dialog. It has no
+     * effect on the {@link Type#GRID}.
+     *
+     * @param engine The engine to be set.
+     *
+     * @return ActionDialog object to allow for chaining of calls to set
+     * methods.
+     *
+     * @see Engine
+     */
+    public ActionDialog setEngine(@NonNull Engine engine) {
+        this.mEngine = engine;
+        return this;
+    }
+
+    /**
+     * Set a view to display after the action items. It will be displayed
+     * only by the {@link Engine#INCREMENTAL} engine.
+     *
+     * @param footerView The view to be displayed or <code>null</code> to
+     * remove the footer.
+     *
+     * @return ActionDialog object to allow for chaining of calls to set
+     * methods.
+     *
+     * @see #setEngine(Engine)
+     */
+    public ActionDialog setFooterView(@Nullable View footerView) {
+        this.mFooterView = footerView;
+        return this;
+    }
+
+    /**
+     * Set the value of {@link #mReusable}. A reusable dialog will keep its
+     * views and the AlertDialog between the shows and will only bind the
+     * adapter, extra info and check button again. Changes made to the
+     * dialog builder will not be applied until it is released.
+     *
+     * @param isReusable Value to be set. Either <code>true</code> or <code>false</code>.
+     *
+     * @return ActionDialog object to allow for chaining of calls to set
+     * methods.
+     *
+     * @see #release()
+     */
+    public ActionDialog setReusable(boolean isReusable) {
+        this.mReusable = isReusable;
+        return this;
+    }
+
     /**
      * Set the value of {@link #mAutoDismiss}.
      *
@@ -614,7 +1226,9 @@ public class ActionDialog {
         createDialog(rootView);
 
         if (!mCustomDialog) {
+            long start = DialogMetrics.begin(DialogMetrics.Phase.SHOW);
             mDialog.show();
+            DialogMetrics.end(this, DialogMetrics.Phase.SHOW, start);
         }
     }
 
@@ -675,6 +1289,22 @@ public class ActionDialog {
         return mType;
     }
 
+    /**
+     * @return The rendering engine of a {@link Type#LIST} dialog.
+     */
+    public Engine getEngine() {
+        return mEngine;
+    }
+
+    /**
+     * @return The view to display after the action items or
+     * <code>null</code> if no footer has been set.
+     */
+    @Nullable
+    public View getFooterView() {
+        return mFooterView;
+    }
+
     /**
      * @return The AlertDialog builder to set custom views.
      */
@@ -698,6 +1328,22 @@ public class ActionDialog {
         return mExtraInfo;
     }
 
+    /**
+     * @return <code>true</code> if the views and the dialog will be kept
+     * to be reused on the next show.
+     */
+    public boolean isReusable() {
+        return mReusable;
+    }
+
+    /**
+     * @return <code>true</code> if a search box will be displayed to filter
+     * the action items.
+     */
+    public boolean isSearchable() {
+        return mSearchable;
+    }
+
     /**
      * @return If check button layout is enabled to remember user selection.
      */
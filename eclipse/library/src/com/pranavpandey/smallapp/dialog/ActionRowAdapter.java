@@ -0,0 +1,369 @@
+/*
+ * Copyright 2016 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.smallapp.dialog;
+
+import android.database.DataSetObserver;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.SparseBooleanArray;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.BaseAdapter;
+import android.widget.ListAdapter;
+import android.widget.ListView;
+
+/**
+ * Adapter used by the {@link ActionDialog.Engine#INCREMENTAL} engine. It
+ * displays the action items along with the extra info header, check row
+ * and footer as separate view types of a single list so that all of them
+ * can be recycled and scrolled together.
+ *
+ * <p>Changes reported by an {@link ActionDialog.IncrementalAdapter} will
+ * only rebind the visible rows in the changed range and the upcoming items
+ * will be prefetched while scrolling for a
+ * {@link ActionDialog.PrefetchAdapter}.</p>
+ */
+class ActionRowAdapter extends BaseAdapter implements AbsListView.OnScrollListener,
+        ActionDialog.OnItemRangeChangedListener {
+
+    /**
+     * Constant for the extra info header view type.
+     */
+    static final int TYPE_HEADER = 0;
+
+    /**
+     * Constant for the check row view type.
+     */
+    static final int TYPE_CHECK = 1;
+
+    /**
+     * Constant for the footer view type.
+     */
+    static final int TYPE_FOOTER = 2;
+
+    /**
+     * No. of view types used by this adapter. View types of the action
+     * items will be offset by this value.
+     */
+    static final int TYPE_COUNT = 3;
+
+    /**
+     * No. of items to be prefetched ahead of the scrolling direction.
+     */
+    static final int PREFETCH_COUNT = 4;
+
+    /**
+     * Adapter for the action items.
+     */
+    private final ListAdapter mAdapter;
+
+    /**
+     * View to display the extra info or <code>null</code>.
+     */
+    private final @Nullable View mHeaderView;
+
+    /**
+     * View to display the check button or <code>null</code>.
+     */
+    private final @Nullable View mCheckView;
+
+    /**
+     * View to display as footer or <code>null</code>.
+     */
+    private final @Nullable View mFooterView;
+
+    /**
+     * <code>true</code> if the header view is clickable.
+     */
+    private final boolean mHeaderEnabled;
+
+    /**
+     * List to which this adapter is attached.
+     */
+    private @Nullable ListView mListView;
+
+    /**
+     * Item positions which have been prefetched since the last change.
+     */
+    private final SparseBooleanArray mPrefetched = new SparseBooleanArray();
+
+    /**
+     * First visible row on the last scroll to find the scrolling direction.
+     */
+    private int mLastFirstVisible;
+
+    /**
+     * Observer to forward the structural changes of the action items.
+     */
+    private final DataSetObserver mObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            mPrefetched.clear();
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onInvalidated() {
+            mPrefetched.clear();
+            notifyDataSetInvalidated();
+        }
+    };
+
+    /**
+     * Constructor to create an adapter for the supplied action items and
+     * views.
+     *
+     * @param adapter Adapter for the action items.
+     * @param headerView View to display the extra info or <code>null</code>.
+     * @param headerEnabled <code>true</code> if the header is clickable.
+     * @param checkView View to display the check button or <code>null</code>.
+     * @param footerView View to display as footer or <code>null</code>.
+     */
+    ActionRowAdapter(@NonNull ListAdapter adapter, @Nullable View headerView,
+                     boolean headerEnabled, @Nullable View checkView,
+                     @Nullable View footerView) {
+        this.mAdapter = adapter;
+        this.mHeaderView = headerView;
+        this.mHeaderEnabled = headerEnabled;
+        this.mCheckView = checkView;
+        this.mFooterView = toListView(footerView);
+    }
+
+    /**
+     * Replace the layout params of a view supplied by the caller with the
+     * list layout params. A view inflated for any other parent cannot be
+     * displayed as a list row on the older devices.
+     *
+     * @param view The view to be displayed as a row.
+     *
+     * @return The supplied view.
+     */
+    private static @Nullable View toListView(@Nullable View view) {
+        if (view != null && view.getLayoutParams() != null
+                && !(view.getLayoutParams() instanceof AbsListView.LayoutParams)) {
+            view.setLayoutParams(new AbsListView.LayoutParams(
+                    view.getLayoutParams().width, view.getLayoutParams().height));
+        }
+
+        return view;
+    }
+
+    /**
+     * Set this adapter to the supplied list and start listening the
+     * changes of the action items.
+     *
+     * @param listView The list to display the rows.
+     */
+    void attach(@NonNull ListView listView) {
+        mListView = listView;
+        mAdapter.registerDataSetObserver(mObserver);
+        if (mAdapter instanceof ActionDialog.IncrementalAdapter) {
+            ((ActionDialog.IncrementalAdapter) mAdapter).setOnItemRangeChangedListener(this);
+        }
+
+        listView.setAdapter(this);
+        listView.setOnScrollListener(this);
+    }
+
+    /**
+     * Remove this adapter from its list and stop listening the changes of
+     * the action items.
+     */
+    void detach() {
+        mAdapter.unregisterDataSetObserver(mObserver);
+        if (mAdapter instanceof ActionDialog.IncrementalAdapter) {
+            ((ActionDialog.IncrementalAdapter) mAdapter).setOnItemRangeChangedListener(null);
+        }
+
+        if (mListView != null) {
+            mListView.setOnScrollListener(null);
+            mListView.setAdapter(null);
+            mListView = null;
+        }
+    }
+
+    /**
+     * @return The adapter for the action items.
+     */
+    ListAdapter getAdapter() {
+        return mAdapter;
+    }
+
+    /**
+     * @return The no. of rows before the action items.
+     */
+    int getHeaderCount() {
+        return mHeaderView != null ? 1 : 0;
+    }
+
+    /**
+     * @param position Position of the row in the list.
+     *
+     * @return Position of the action item in its adapter or <code>-1</code>
+     * if the row is not an action item.
+     */
+    int getItemPosition(int position) {
+        int itemPosition = position - getHeaderCount();
+        return itemPosition >= 0 && itemPosition < mAdapter.getCount() ? itemPosition : -1;
+    }
+
+    /**
+     * @param position Position of the row in the list.
+     *
+     * @return <code>true</code> if the row is the extra info header.
+     */
+    boolean isHeader(int position) {
+        return mHeaderView != null && position == 0;
+    }
+
+    /**
+     * @param position Position of the row in the list.
+     *
+     * @return The view type of a fixed row or <code>-1</code> if the row is
+     * an action item.
+     */
+    private int getFixedType(int position) {
+        if (isHeader(position)) {
+            return TYPE_HEADER;
+        }
+
+        position -= getHeaderCount() + mAdapter.getCount();
+        if (position < 0) {
+            return -1;
+        } else if (mCheckView != null && position == 0) {
+            return TYPE_CHECK;
+        } else {
+            return TYPE_FOOTER;
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return getHeaderCount() + mAdapter.getCount() + (mCheckView != null ? 1 : 0)
+                + (mFooterView != null ? 1 : 0);
+    }
+
+    @Override
+    public Object getItem(int position) {
+        int itemPosition = getItemPosition(position);
+        return itemPosition != -1 ? mAdapter.getItem(itemPosition) : null;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        int itemPosition = getItemPosition(position);
+        if (itemPosition != -1) {
+            return mAdapter.getItemId(itemPosition);
+        }
+
+        // Negative ids for the fixed rows to avoid conflicts with the items.
+        return -1 - getFixedType(position);
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return mAdapter.hasStableIds();
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return TYPE_COUNT + mAdapter.getViewTypeCount();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        int itemPosition = getItemPosition(position);
+        if (itemPosition == -1) {
+            return getFixedType(position);
+        }
+
+        int viewType = mAdapter.getItemViewType(itemPosition);
+        return viewType < 0 ? viewType : TYPE_COUNT + viewType;
+    }
+
+    @Override
+    public boolean areAllItemsEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isEnabled(int position) {
+        int itemPosition = getItemPosition(position);
+        if (itemPosition != -1) {
+            return mAdapter.isEnabled(itemPosition);
+        }
+
+        // Check row handles its own clicks.
+        return getFixedType(position) == TYPE_HEADER && mHeaderEnabled;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        int itemPosition = getItemPosition(position);
+        if (itemPosition != -1) {
+            return mAdapter.getView(itemPosition, convertView, parent);
+        }
+
+        switch (getFixedType(position)) {
+            case TYPE_HEADER:
+                return mHeaderView;
+            case TYPE_CHECK:
+                return mCheckView;
+            default:
+                return mFooterView;
+        }
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+        if (mListView == null) {
+            return;
+        }
+
+        // Rebind the existing rows, fall back to a full layout if the
+        // adapter does not reuse them.
+        if (!ActionDialog.rebindItems(mListView, mAdapter, getHeaderCount(),
+                positionStart, itemCount)) {
+            notifyDataSetChanged();
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) { }
+
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem,
+                         int visibleItemCount, int totalItemCount) {
+        if (!(mAdapter instanceof ActionDialog.PrefetchAdapter) || visibleItemCount == 0) {
+            return;
+        }
+
+        boolean scrollingUp = firstVisibleItem < mLastFirstVisible;
+        mLastFirstVisible = firstVisibleItem;
+
+        int start = scrollingUp ? firstVisibleItem - 1
+                : firstVisibleItem + visibleItemCount;
+        for (int i = 0; i < PREFETCH_COUNT; i++) {
+            int itemPosition = getItemPosition(scrollingUp ? start - i : start + i);
+            if (itemPosition != -1 && !mPrefetched.get(itemPosition)) {
+                mPrefetched.put(itemPosition, true);
+                ((ActionDialog.PrefetchAdapter) mAdapter).prefetch(itemPosition);
+            }
+        }
+    }
+}
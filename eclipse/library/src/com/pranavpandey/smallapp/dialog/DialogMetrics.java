@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.smallapp.dialog;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+import android.support.annotation.Nullable;
+
+/**
+ * A class to measure the time taken by each phase of creating and showing
+ * an {@link ActionDialog}. Timings will be dispatched to a metrics listener
+ * and can also be recorded as trace sections to view them in systrace.
+ *
+ * <p>Nothing will be measured until a listener is set or tracing is
+ * enabled so, it does not add any cost to the dialogs by default. Both
+ * should be set before showing a dialog.</p>
+ *
+ * @see #setListener(OnPhaseMeasuredListener)
+ * @see #setTracing(boolean)
+ */
+public class DialogMetrics {
+
+    /**
+     * Interface definition for a callback to be invoked when a phase of
+     * a dialog has been measured.
+     */
+    public interface OnPhaseMeasuredListener {
+
+        /**
+         * Called when a phase of a dialog has been measured. It may be
+         * called from a background thread.
+         *
+         * @param dialog The dialog which has been measured.
+         * @param phase The phase which has been measured.
+         * @param durationNanos Time taken by the phase in nanoseconds.
+         *
+         * @see Phase
+         */
+        void onPhaseMeasured(ActionDialog dialog, String phase, long durationNanos);
+    }
+
+    /**
+     * Class to hold the constant values for the phases of a dialog.
+     */
+    public static class Phase {
+
+        /**
+         * Constant for querying the PackageManager to resolve activities.
+         */
+        public static final String RESOLVE = "resolve";
+
+        /**
+         * Constant for sorting the activities according to their usage.
+         */
+        public static final String SORT = "sort";
+
+        /**
+         * Constant for reading the associations and usage database.
+         */
+        public static final String DB_LOOKUP = "db_lookup";
+
+        /**
+         * Constant for building the adapter.
+         */
+        public static final String ADAPTER = "adapter";
+
+        /**
+         * Constant for inflating the views and creating the dialog.
+         */
+        public static final String INFLATE = "inflate";
+
+        /**
+         * Constant for showing the dialog.
+         */
+        public static final String SHOW = "show";
+    }
+
+    /**
+     * Prefix for the trace section names.
+     */
+    private static final String TRACE_PREFIX = "sas:";
+
+    /**
+     * Bit of the token returned by {@link #begin(String)} which is set if a
+     * trace section has been opened.
+     */
+    private static final long TOKEN_TRACED = 1L;
+
+    /**
+     * Listener to dispatch the measured phases.
+     */
+    private static volatile @Nullable OnPhaseMeasuredListener sListener;
+
+    /**
+     * <code>true</code> to record the phases as trace sections.
+     */
+    private static volatile boolean sTracing = false;
+
+    /**
+     * Set a listener to be notified when a phase has been measured.
+     *
+     * @param listener The listener to be set or <code>null</code> to
+     * stop measuring.
+     */
+    public static void setListener(@Nullable OnPhaseMeasuredListener listener) {
+        sListener = listener;
+    }
+
+    /**
+     * Set the value of {@link #sTracing}. Trace sections are available on
+     * {@link Build.VERSION_CODES#JELLY_BEAN_MR2} and above.
+     *
+     * @param isTracing Value to be set. Either <code>true</code> or
+     * <code>false</code>.
+     */
+    public static void setTracing(boolean isTracing) {
+        sTracing = isTracing && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    /**
+     * Begin measuring a phase. It must be followed by
+     * {@link #end(ActionDialog, String, long)} on the same thread.
+     *
+     * @param phase The phase to be measured.
+     *
+     * @return The token to end the phase or <code>0</code> if nothing
+     * is being measured. It is the start time of the phase whose lowest bit
+     * tells whether a trace section has been opened.
+     */
+    static long begin(String phase) {
+        if (sListener == null && !sTracing) {
+            return 0;
+        }
+
+        // Tracing may be toggled before the phase ends so, remember it.
+        long token = System.nanoTime() & ~TOKEN_TRACED;
+        if (sTracing) {
+            beginSection(phase);
+            token |= TOKEN_TRACED;
+        }
+
+        return token != 0 ? token : TOKEN_TRACED << 1;
+    }
+
+    /**
+     * End measuring a phase and dispatch its duration.
+     *
+     * @param dialog The dialog which has been measured.
+     * @param phase The phase which has been measured.
+     * @param start The token returned by {@link #begin(String)}.
+     */
+    static void end(ActionDialog dialog, String phase, long start) {
+        if (start == 0) {
+            return;
+        }
+
+        long duration = System.nanoTime() - (start & ~TOKEN_TRACED);
+        if ((start & TOKEN_TRACED) != 0) {
+            endSection();
+        }
+
+        OnPhaseMeasuredListener listener = sListener;
+        if (listener != null) {
+            listener.onPhaseMeasured(dialog, phase, duration);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void beginSection(String phase) {
+        Trace.beginSection(TRACE_PREFIX + phase);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void endSection() {
+        Trace.endSection();
+    }
+}
@@ -16,14 +16,32 @@
 
 package com.pranavpandey.smallapp.dialog;
 
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import com.pranavpandey.smallapp.R;
 import com.pranavpandey.smallapp.SmallUtils;
+import com.pranavpandey.smallapp.adapter.SearchIndex;
 import com.pranavpandey.smallapp.database.Associations;
+import com.pranavpandey.smallapp.resolver.IntentResolver;
+import com.pranavpandey.smallapp.resolver.LabelIconCache;
+import com.pranavpandey.smallapp.theme.DynamicTheme;
+import com.pranavpandey.smallapp.theme.SmallTheme;
+import com.pranavpandey.smallapp.theme.SmallTheme.ColorType;
 import com.pranavpandey.smallapp.view.ColoredImageView;
 import com.pranavpandey.smallapp.view.ColoredTextView;
+import com.pranavpandey.smallapp.view.ViewPool;
 
 import android.app.AlertDialog;
 import android.app.Dialog;
@@ -34,6 +52,8 @@ import android.content.Intent;
 import android.content.pm.ActivityInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -59,6 +79,27 @@ import android.widget.TextView;
  */
 public class OpenIntentDialog extends ActionDialog {
 
+    /**
+     * Delay in milliseconds after which the dialog shell will be displayed
+     * if the activities are still being resolved in the background. It
+     * avoids a flicker if an activity will be opened directly.
+     */
+    private static final int ASYNC_SHELL_DELAY = 100;
+
+    /**
+     * No. of activities to be added to the dialog shell at once.
+     */
+    private static final int ASYNC_BATCH_SIZE = 8;
+
+    /**
+     * <code>true</code> if the dialog layouts have been inflated once to
+     * load their classes and resources. It is accessed only on the main
+     * thread.
+     *
+     * @see #prewarm(Context, Intent...)
+     */
+    private static boolean sDialogLayoutsWarmed;
+
     /**
      * Interface definition for a callback to be invoked when there will be
      * no activity to handle this intent. Use this listener to notify user
@@ -88,10 +129,24 @@ public class OpenIntentDialog extends ActionDialog {
     }
 
     /**
-     * Intent to query list of activities.
+     * Intent to query list of activities. In case of multiple intents, it
+     * will be the first one.
      */
     private Intent mIntent;
 
+    /**
+     * Intents to query list of activities. Activities for all the intents
+     * will be merged into a single list.
+     */
+    private Intent[] mIntents;
+
+    /**
+     * Intent to be launched for each activity in case of multiple intents.
+     * It will be {@link #mIntent} if an activity is not present in it. It
+     * is assigned and read only on the main thread.
+     */
+    private Map<ResolveInfo, Intent> mLaunchIntents = new HashMap<ResolveInfo, Intent>();
+
     /**
      * <code>true</code> if auto open when there is only
      * <code>one</code> activity in the list.
@@ -132,6 +187,18 @@ public class OpenIntentDialog extends ActionDialog {
      */
     private String mDefaultIntentType;
 
+    /**
+     * <code>true</code> to resolve activities on a background thread
+     * and add them progressively to the dialog.
+     */
+    private boolean mAsyncResolve = false;
+
+    /**
+     * <code>true</code> if the dialog shell has been displayed while
+     * resolving activities in the background.
+     */
+    private boolean mShellShown = false;
+
     /**
      * Constructor using a context, intent, alert dialog builder and dialog type to
      * display an Action dialog which shows a list of activities that are available
@@ -141,21 +208,429 @@ public class OpenIntentDialog extends ActionDialog {
                             AlertDialog.Builder dialogBuilder, Type type) {
         super(context, dialogBuilder, type);
         this.mIntent = intent;
+        this.mIntents = new Intent[] { intent };
         this.mPackageManager = getContext().getPackageManager();
     }
 
+    /**
+     * Constructor using a context, intents, alert dialog builder and dialog type to
+     * display an Action dialog which shows a merged list of activities that are
+     * available to handle any of the supplied intents. Each activity will be shown
+     * only once and will be launched with the first intent it can handle.
+     *
+     * @throws IllegalArgumentException If no intent has been supplied.
+     */
+    public OpenIntentDialog(Context context, Intent[] intents,
+                            AlertDialog.Builder dialogBuilder, Type type) {
+        this(context, intents.length > 0 ? intents[0] : null, dialogBuilder, type);
+
+        if (intents.length == 0) {
+            throw new IllegalArgumentException("Intents should not be empty");
+        }
+
+        this.mIntents = intents;
+    }
+
+    /**
+     * Prepare the dialog for the supplied intents so that it can be
+     * displayed instantly on the first use. Activities will be resolved
+     * and their labels and icons will be cached on a background thread,
+     * while the header, row and item layouts will be inflated in advance
+     * into the {@link ViewPool}. Dialog layouts contain list, grid and edit
+     * text views so, they are not safe to be inflated in the background.
+     * They will be inflated once on the calling thread and discarded to
+     * load their classes and resources. Resolver and caches will be
+     * initialized even if there is no intent.
+     *
+     * <p>It should be called on the main thread while the app is idle.
+     * Pooled views will be used only by the dialogs created with the same
+     * context, e.g. the small app itself instead of its application
+     * context.</p>
+     *
+     * @param context to resolve the intents and to inflate the layouts.
+     * @param intents The intents to be resolved in advance or
+     * <code>null</code> to only prepare the layouts and caches.
+     *
+     * @see com.pranavpandey.smallapp.SmallApp#getPrewarmIntents()
+     */
+    public static void prewarm(@NonNull Context context, @Nullable final Intent... intents) {
+        final Context appContext = context.getApplicationContext();
+        final IntentResolver resolver = IntentResolver.getInstance(appContext);
+        LabelIconCache.getInstance(appContext);
+
+        if (intents != null && intents.length > 0) {
+            resolver.execute(new Runnable() {
+                @Override
+                public void run() {
+                    LabelIconCache cache = LabelIconCache.getInstance(appContext);
+
+                    for (Intent intent : intents) {
+                        if (intent == null) {
+                            continue;
+                        }
+
+                        for (ResolveInfo resolveInfo : resolver.queryIntentActivities(
+                                intent, PackageManager.MATCH_DEFAULT_ONLY)) {
+                            cache.getLabel(resolveInfo);
+                            cache.getIcon(resolveInfo);
+                        }
+                    }
+                }
+            });
+        }
+
+        if (!sDialogLayoutsWarmed) {
+            sDialogLayoutsWarmed = true;
+
+            LayoutInflater inflater = LayoutInflater.from(context);
+            inflater.inflate(R.layout.sas_dialog_action_list,
+                    new LinearLayout(context), false);
+            inflater.inflate(R.layout.sas_dialog_action_grid,
+                    new LinearLayout(context), false);
+        }
+
+        ViewPool viewPool = ViewPool.getInstance();
+        viewPool.preInflate(context, R.layout.sas_dialog_extra_info_grid, 1);
+        viewPool.preInflate(context, R.layout.sas_dialog_extra_info_list, 1);
+        viewPool.preInflate(context, R.layout.sas_item_grid_action, ViewPool.DEFAULT_SIZE);
+        viewPool.preInflate(context, R.layout.sas_row_list_action, ViewPool.DEFAULT_SIZE);
+    }
+
     /**
      * Creates a {@link ActionDialog} with the arguments supplied to the
-     * constructor by using the Activity adapter.
+     * constructor by using the Activity adapter. If {@link #mAsyncResolve}
+     * is enabled then, activities will be resolved on a background thread
+     * and the dialog will be displayed by this method itself.
      *
      * @param rootView Root view to which the dialog should attach.
      *
      * @see ActivityAdapter
+     * @see #setAsyncResolve(boolean)
      */
     @Override
     public void createDialog(@NonNull View rootView) {
-        List<ResolveInfo> launchables = mPackageManager.queryIntentActivities(mIntent,
-                PackageManager.MATCH_DEFAULT_ONLY);
+        if (mAsyncResolve) {
+            createDialogAsync(rootView);
+        } else {
+            Map<ResolveInfo, Intent> launchIntents = new HashMap<ResolveInfo, Intent>();
+            onLaunchablesResolved(rootView, resolveLaunchables(launchIntents), launchIntents);
+        }
+    }
+
+    /**
+     * Resolve activities on a background thread and display the dialog
+     * shell if they are not resolved within {@link #ASYNC_SHELL_DELAY}.
+     * Resolved activities will be added to the shell progressively. It
+     * will be treated as a custom dialog only until the activities have
+     * been resolved.
+     *
+     * @param rootView Root view to which the dialog should attach.
+     */
+    private void createDialogAsync(@NonNull final View rootView) {
+        // Dialog will be shown by this class so, restore the flag once resolved.
+        final boolean customDialog = isCustomDialog();
+        setCustomDialog(true);
+        mShellShown = false;
+
+        final Handler handler = new Handler(Looper.getMainLooper());
+        final Runnable showShell = new Runnable() {
+            @Override
+            public void run() {
+                mShellShown = true;
+                setupActivityAdapter();
+                OpenIntentDialog.super.createDialog(rootView);
+                showDialog();
+            }
+        };
+
+        handler.postDelayed(showShell, ASYNC_SHELL_DELAY);
+        IntentResolver.getInstance(getContext()).execute(new Runnable() {
+            @Override
+            public void run() {
+                final Map<ResolveInfo, Intent> launchIntents =
+                        new HashMap<ResolveInfo, Intent>();
+                final List<ResolveInfo> launchables = resolveLaunchables(launchIntents);
+
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        handler.removeCallbacks(showShell);
+                        setCustomDialog(customDialog);
+
+                        if (!mShellShown) {
+                            onLaunchablesResolved(rootView, launchables, launchIntents);
+                        } else if (getDialog().isShowing()) {
+                            publishLaunchables(rootView, launchables, launchIntents);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Add the resolved activities to the dialog shell in small batches so
+     * that the first rows will be displayed without waiting for the
+     * whole list. If the activities can be opened directly then, shell
+     * will be dismissed.
+     *
+     * @param rootView Root view to which the dialog should attach.
+     * @param launchables List of resolved activities.
+     * @param launchIntents Intent to be launched for each activity.
+     */
+    private void publishLaunchables(@NonNull View rootView,
+                                    final List<ResolveInfo> launchables,
+                                    Map<ResolveInfo, Intent> launchIntents) {
+        mLaunchIntents = launchIntents;
+
+        if (launchables.isEmpty() || getAutoLaunchable(launchables) != null) {
+            dismissDialog();
+            onLaunchablesResolved(rootView, launchables, launchIntents);
+            return;
+        }
+
+        final ActivityAdapter adapter = (ActivityAdapter) getAdapter();
+        final Handler handler = new Handler(Looper.getMainLooper());
+        adapter.setNotifyOnChange(false);
+        handler.post(new Runnable() {
+            private int mPosition = 0;
+
+            @Override
+            public void run() {
+                int end = Math.min(mPosition + ASYNC_BATCH_SIZE, launchables.size());
+                adapter.addAll(launchables.subList(mPosition, end));
+                adapter.notifyDataSetChanged();
+                mPosition = end;
+
+                if (mPosition < launchables.size()) {
+                    handler.post(this);
+                }
+            }
+        });
+    }
+
+    /**
+     * Resolve and sort the activities which can handle the supplied
+     * intent. If an associated activity can still handle it then, only
+     * that activity will be returned without querying the whole list.
+     * It can be called from a background thread so, the intents to be
+     * launched will be saved in the supplied map instead of
+     * {@link #mLaunchIntents}.
+     *
+     * @param launchIntents Map to save the intent to be launched for each
+     * activity. It should be handed over to the main thread.
+     *
+     * @return List of the resolved activities.
+     *
+     * @see #onLaunchablesResolved(View, List, Map)
+     */
+    private List<ResolveInfo> resolveLaunchables(Map<ResolveInfo, Intent> launchIntents) {
+        List<ResolveInfo> launchables;
+
+        ResolveInfo associatedLaunchable = resolveAssociatedLaunchable(launchIntents);
+        if (associatedLaunchable != null) {
+            launchables = new ArrayList<ResolveInfo>(1);
+            launchables.add(associatedLaunchable);
+        } else {
+            launchables = queryLaunchables(launchIntents);
+
+            if (!launchables.isEmpty()) {
+                long start = DialogMetrics.begin(DialogMetrics.Phase.DB_LOOKUP);
+                Map<ResolveInfo, Double> scores = getUsageScores(launchables, launchIntents);
+                DialogMetrics.end(this, DialogMetrics.Phase.DB_LOOKUP, start);
+
+                start = DialogMetrics.begin(DialogMetrics.Phase.SORT);
+                Collections.sort(launchables, new UsageComparator(scores,
+                        LabelIconCache.getInstance(getContext())));
+                DialogMetrics.end(this, DialogMetrics.Phase.SORT, start);
+            }
+        }
+
+        return launchables;
+    }
+
+    /**
+     * Get the usage scores of the activities. Score of each activity will
+     * be retrieved for the key of the intent which will launch it so that
+     * the activities of all the merged intents will be ranked by their
+     * own launches.
+     *
+     * @param launchables List of the resolved activities.
+     * @param launchIntents Intent to be launched for each activity in case
+     * of multiple intents.
+     *
+     * @return Map of the activities which have been launched before and
+     * their scores.
+     */
+    private Map<ResolveInfo, Double> getUsageScores(List<ResolveInfo> launchables,
+                                                    Map<ResolveInfo, Intent> launchIntents) {
+        Associations.SQLiteHelper helper = (new Associations(getContext())).getHelper();
+        Map<Intent, Map<String, Double>> usages = new HashMap<Intent, Map<String, Double>>();
+        Map<ResolveInfo, Double> scores = new HashMap<ResolveInfo, Double>();
+
+        for (ResolveInfo resolveInfo : launchables) {
+            Intent intent = launchIntents.get(resolveInfo);
+            if (intent == null) {
+                intent = mIntent;
+            }
+
+            Map<String, Double> usage = usages.get(intent);
+            if (usage == null) {
+                usage = helper.getUsage(helper.getKey(intent));
+                usages.put(intent, usage);
+            }
+
+            Double score = usage.get(new ComponentName(resolveInfo.activityInfo.packageName,
+                    resolveInfo.activityInfo.name).flattenToString());
+            if (score != null) {
+                scores.put(resolveInfo, score);
+            }
+        }
+
+        return scores;
+    }
+
+    /**
+     * Query the activities for all the supplied intents. In case of
+     * multiple intents, they will be resolved concurrently and the
+     * activities will be merged by their component name.
+     *
+     * @param launchIntents Map to save the intent to be launched for each
+     * activity in case of multiple intents.
+     *
+     * @return List of the resolved activities.
+     */
+    private List<ResolveInfo> queryLaunchables(Map<ResolveInfo, Intent> launchIntents) {
+        IntentResolver resolver = IntentResolver.getInstance(getContext());
+        long start = DialogMetrics.begin(DialogMetrics.Phase.RESOLVE);
+
+        if (mIntents.length == 1) {
+            List<ResolveInfo> launchables = resolver.queryIntentActivities(
+                    mIntent, PackageManager.MATCH_DEFAULT_ONLY);
+            DialogMetrics.end(this, DialogMetrics.Phase.RESOLVE, start);
+            return launchables;
+        }
+
+        List<List<ResolveInfo>> results = resolver.queryIntentActivities(
+                Arrays.asList(mIntents), PackageManager.MATCH_DEFAULT_ONLY);
+        DialogMetrics.end(this, DialogMetrics.Phase.RESOLVE, start);
+        List<ResolveInfo> launchables = new ArrayList<ResolveInfo>();
+        Set<ComponentName> components = new HashSet<ComponentName>();
+
+        for (int i = 0; i < mIntents.length; i++) {
+            for (ResolveInfo resolveInfo : results.get(i)) {
+                if (components.add(new ComponentName(resolveInfo.activityInfo.packageName,
+                        resolveInfo.activityInfo.name))) {
+                    launchables.add(resolveInfo);
+                    launchIntents.put(resolveInfo, mIntents[i]);
+                }
+            }
+        }
+
+        return launchables;
+    }
+
+    /**
+     * Get the intent to launch an activity.
+     *
+     * @param resolveInfo The activity to be launched.
+     *
+     * @return The intent to launch the activity.
+     */
+    private Intent getLaunchIntent(ResolveInfo resolveInfo) {
+        Intent intent = mLaunchIntents.get(resolveInfo);
+        return intent != null ? intent : mIntent;
+    }
+
+    /**
+     * Resolve the associated activity directly by querying the intent
+     * scoped to its package. In case of multiple intents, the first
+     * intent having a valid association will be used. It can be called
+     * from a background thread.
+     *
+     * @param launchIntents Map to save the intent to be launched for the
+     * associated activity.
+     *
+     * @return The associated activity or <code>null</code> if there is no
+     * association, the selection is forced or the associated package can
+     * no longer handle the intent.
+     */
+    private @Nullable ResolveInfo resolveAssociatedLaunchable(
+            Map<ResolveInfo, Intent> launchIntents) {
+        if (mForceSelection) {
+            return null;
+        }
+
+        Associations.SQLiteHelper helper = (new Associations(getContext())).getHelper();
+        for (Intent intent : mIntents) {
+            long start = DialogMetrics.begin(DialogMetrics.Phase.DB_LOOKUP);
+            String associatedPackage = helper.get(intent);
+            DialogMetrics.end(this, DialogMetrics.Phase.DB_LOOKUP, start);
+            if (associatedPackage == null) {
+                continue;
+            }
+
+            Intent scopedIntent = new Intent(intent);
+            scopedIntent.setPackage(associatedPackage);
+            start = DialogMetrics.begin(DialogMetrics.Phase.RESOLVE);
+            List<ResolveInfo> launchables = IntentResolver.getInstance(getContext())
+                    .queryIntentActivities(scopedIntent, PackageManager.MATCH_DEFAULT_ONLY);
+            DialogMetrics.end(this, DialogMetrics.Phase.RESOLVE, start);
+
+            if (!launchables.isEmpty()) {
+                launchIntents.put(launchables.get(0), intent);
+                return launchables.get(0);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Find the activity which can be opened directly without showing the
+     * dialog. It will be either the associated activity or the only
+     * activity in the list if {@link #mOpenSingleApp} is enabled.
+     *
+     * @param launchables List of the resolved activities.
+     *
+     * @return The activity to be opened directly or <code>null</code>.
+     */
+    private @Nullable ResolveInfo getAutoLaunchable(List<ResolveInfo> launchables) {
+        if (!mForceSelection) {
+            Associations.SQLiteHelper helper = (new Associations(getContext())).getHelper();
+
+            for (Intent intent : mIntents) {
+                String associatedPackage = helper.get(intent);
+
+                if (associatedPackage != null) {
+                    for (ResolveInfo resolveInfo: launchables) {
+                        if (resolveInfo.activityInfo.packageName.equals(associatedPackage)
+                                && getLaunchIntent(resolveInfo) == intent) {
+                            return resolveInfo;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (launchables.size() == 1 && mOpenSingleApp) {
+            return launchables.get(0);
+        }
+
+        return null;
+    }
+
+    /**
+     * Display the dialog for the resolved activities or open an activity
+     * directly if possible.
+     *
+     * @param rootView Root view to which the dialog should attach.
+     * @param launchables List of the resolved activities.
+     * @param launchIntents Intent to be launched for each activity.
+     */
+    private void onLaunchablesResolved(@NonNull View rootView, List<ResolveInfo> launchables,
+                                       Map<ResolveInfo, Intent> launchIntents) {
+        mLaunchIntents = launchIntents;
 
         if (launchables.isEmpty()) {
             setCustomDialog(true);
@@ -188,60 +663,75 @@ public class OpenIntentDialog extends ActionDialog {
                         rootView.getWindowToken()).show();
             }
         } else {
-            Collections.sort(launchables, new ResolveInfo.DisplayNameComparator(mPackageManager));
+            ResolveInfo autoLaunchable = getAutoLaunchable(launchables);
 
-            String associatedPackage = (new Associations(getContext()))
-                    .getHelper().get(mIntent.resolveType(getContext()));
+            if (autoLaunchable != null) {
+                setCustomDialog(true);
+                launchActivity(autoLaunchable);
+            } else {
+                long start = DialogMetrics.begin(DialogMetrics.Phase.ADAPTER);
+                setupActivityAdapter().addAll(launchables);
+                DialogMetrics.end(this, DialogMetrics.Phase.ADAPTER, start);
+                super.createDialog(rootView);
 
-            if (associatedPackage != null && !mForceSelection) {
-                for (ResolveInfo resolveInfo: launchables) {
-                    if (resolveInfo.activityInfo.packageName.equals(associatedPackage)) {
-                        setCustomDialog(true);
-                        launchActivity(resolveInfo);
-                        return;
-                    }
+                if (mAsyncResolve) {
+                    showDialog();
                 }
             }
+        }
+    }
 
-            if (launchables.size() == 1 && mOpenSingleApp) {
-                setCustomDialog(true);
-                launchActivity(launchables.get(0));
-            } else {
-                if (mRememberSelection) {
-                    setCheckButtonLayout(R.string.sas_always_use, false, null);
-                }
+    /**
+     * Show the dialog created by this class itself and measure it.
+     */
+    private void showDialog() {
+        long start = DialogMetrics.begin(DialogMetrics.Phase.SHOW);
+        getDialog().show();
+        DialogMetrics.end(this, DialogMetrics.Phase.SHOW, start);
+    }
 
-                ActivityAdapter adapter = new ActivityAdapter(getContext(), mPackageManager,
-                        getType() == Type.LIST ? R.layout.sas_row_list_action
-                                : R.layout.sas_item_grid_action);
-                adapter.addAll(launchables);
-                setAdapter(adapter, new OnActionItemClickListener() {
-                    @Override
-                    public void onActionItemClick(DialogInterface dialog, Adapter adapter,
-                                                  AdapterView<?> parent, View view,
-                                                  int position, long id) {
-                        launchActivity((ResolveInfo) adapter.getItem(position));
-
-                        if (isCheckButtonChecked()) {
-                            if (mForceSelection) {
-                                if (mDefaultIntentType != null) {
-                                    (new Associations(getContext()))
-                                            .getHelper().put(mDefaultIntentType,
-                                            ((ResolveInfo) adapter.getItem(position))
-                                                    .activityInfo.packageName);
-                                }
-                            } else {
-                                (new Associations(getContext()))
-                                        .getHelper().put(mIntent.resolveType(getContext()),
-                                        ((ResolveInfo) adapter.getItem(position))
-                                                .activityInfo.packageName);
-                            }
+    /**
+     * Set an empty {@link ActivityAdapter} for this dialog with a click
+     * listener to open the selected activity and to remember the selection.
+     *
+     * @return The adapter set for this dialog.
+     */
+    private ActivityAdapter setupActivityAdapter() {
+        if (mRememberSelection) {
+            setCheckButtonLayout(R.string.sas_always_use, false, null);
+        }
+
+        ActivityAdapter adapter = new ActivityAdapter(getContext(), mPackageManager,
+                getType() == Type.LIST ? R.layout.sas_row_list_action
+                        : R.layout.sas_item_grid_action);
+        setAdapter(adapter, new OnActionItemClickListener() {
+            @Override
+            public void onActionItemClick(DialogInterface dialog, Adapter adapter,
+                                          AdapterView<?> parent, View view,
+                                          int position, long id) {
+                launchActivity((ResolveInfo) adapter.getItem(position));
+
+                if (isCheckButtonChecked()) {
+                    if (mForceSelection) {
+                        if (mDefaultIntentType != null) {
+                            (new Associations(getContext()))
+                                    .getHelper().putAsync(mDefaultIntentType,
+                                    ((ResolveInfo) adapter.getItem(position))
+                                            .activityInfo.packageName);
                         }
+                    } else {
+                        Associations.SQLiteHelper helper =
+                                (new Associations(getContext())).getHelper();
+                        helper.putAsync(getLaunchIntent(
+                                (ResolveInfo) adapter.getItem(position)),
+                                ((ResolveInfo) adapter.getItem(position))
+                                        .activityInfo.packageName);
                     }
-                });
-                super.createDialog(rootView);
+                }
             }
-        }
+        });
+
+        return adapter;
     }
 
     /**
@@ -254,13 +744,19 @@ public class OpenIntentDialog extends ActionDialog {
      */
     private void launchActivity(ResolveInfo resolveInfo) {
         ActivityInfo activity = resolveInfo.activityInfo;
-        mIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-        mIntent.setClassName(activity.applicationInfo.packageName, activity.name);
-        getContext().startActivity(mIntent);
+        ComponentName componentName = new ComponentName(
+                activity.applicationInfo.packageName, activity.name);
+
+        Intent intent = getLaunchIntent(resolveInfo);
+        Associations.SQLiteHelper helper = (new Associations(getContext())).getHelper();
+        helper.recordLaunch(helper.getKey(intent), componentName);
+
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        intent.setClassName(activity.applicationInfo.packageName, activity.name);
+        getContext().startActivity(intent);
 
         if (mActivityOpenListener != null) {
-            mActivityOpenListener.onActivityOpen(new ComponentName(
-                    activity.applicationInfo.packageName, activity.name));
+            mActivityOpenListener.onActivityOpen(componentName);
         }
     }
 
@@ -306,6 +802,24 @@ public class OpenIntentDialog extends ActionDialog {
         return this;
     }
 
+    /**
+     * Set the value of {@link #mAsyncResolve}. If enabled, activities will
+     * be resolved on a background thread and the dialog will be displayed
+     * as soon as possible with the activities added progressively. It will
+     * still open the associated or single activity directly according to
+     * the other settings.
+     *
+     * @param isAsyncResolve Value to be set. Either <code>true</code> or
+     * <code>false</code>.
+     *
+     * @return OpenIntentDialog object to allow for chaining of calls
+     * to set methods.
+     */
+    public OpenIntentDialog setAsyncResolve(boolean isAsyncResolve) {
+        this.mAsyncResolve = isAsyncResolve;
+        return this;
+    }
+
     /**
      * Set the value of {@link #mDefaultIntentType}.
      *
@@ -384,13 +898,88 @@ public class OpenIntentDialog extends ActionDialog {
         return mActivityOpenListener;
     }
 
+    /**
+     * Comparator to sort the activities according to their usage so that
+     * the most used activity will be displayed first. Activities with the
+     * same score, e.g. all of them if there is no usage, will be sorted
+     * alphabetically like {@link ResolveInfo.DisplayNameComparator}. Labels
+     * are taken from the {@link LabelIconCache} and collated only once for
+     * each activity.
+     *
+     * @see Associations.SQLiteHelper#getUsage(String)
+     */
+    static class UsageComparator implements Comparator<ResolveInfo> {
+
+        /**
+         * Usage score of the activities which have been launched before.
+         */
+        private final Map<ResolveInfo, Double> mScores;
+
+        /**
+         * Cache to retrieve the labels of the activities.
+         */
+        private final LabelIconCache mLabelIconCache;
+
+        /**
+         * Collator to compare the labels according to the current locale.
+         */
+        private final Collator mCollator = Collator.getInstance();
+
+        /**
+         * Collation keys of the labels retrieved while sorting.
+         */
+        private final Map<ResolveInfo, CollationKey> mLabels =
+                new HashMap<ResolveInfo, CollationKey>();
+
+        UsageComparator(Map<ResolveInfo, Double> scores, LabelIconCache labelIconCache) {
+            mScores = scores;
+            mLabelIconCache = labelIconCache;
+        }
+
+        /**
+         * @param resolveInfo The activity to get the label.
+         *
+         * @return Collation key for the label of the activity.
+         */
+        private CollationKey getLabel(ResolveInfo resolveInfo) {
+            CollationKey label = mLabels.get(resolveInfo);
+
+            if (label == null) {
+                CharSequence name = mLabelIconCache.getLabel(resolveInfo);
+                label = mCollator.getCollationKey(name != null ? name.toString()
+                        : resolveInfo.activityInfo.name);
+                mLabels.put(resolveInfo, label);
+            }
+
+            return label;
+        }
+
+        /**
+         * @param resolveInfo The activity to get the score.
+         *
+         * @return Usage score of the activity or <code>0</code> if it has
+         * not been launched before.
+         */
+        private double getScore(ResolveInfo resolveInfo) {
+            Double score = mScores.get(resolveInfo);
+            return score != null ? score : 0d;
+        }
+
+        @Override
+        public int compare(ResolveInfo lhs, ResolveInfo rhs) {
+            int result = Double.compare(getScore(rhs), getScore(lhs));
+            return result != 0 ? result : getLabel(lhs).compareTo(getLabel(rhs));
+        }
+    }
+
     /**
      * Adapter to display activity item in <code>List</code>. It extends the
      * ArrayAdapter and the list must contain {@link android.content.pm.ResolveInfo}.
      *
      * @see android.widget.ArrayAdapter
      */
-    static class ActivityAdapter extends ArrayAdapter<ResolveInfo> {
+    static class ActivityAdapter extends ArrayAdapter<ResolveInfo>
+            implements SearchableAdapter, PrefetchAdapter {
 
         /**
          * PackageManager to retrieve app name and icon.
@@ -407,26 +996,111 @@ public class OpenIntentDialog extends ActionDialog {
          */
         @LayoutRes int mLayoutId;
 
+        /**
+         * Shared cache to retrieve app name and icon without loading them
+         * on each bind.
+         */
+        LabelIconCache mLabelIconCache;
+
+        /**
+         * Index to search the activities by their names. It will be built
+         * on the first search.
+         */
+        SearchIndex<ResolveInfo> mSearchIndex;
+
+        /**
+         * Activities matched by the current search query or <code>null</code>
+         * to display all the activities.
+         */
+        List<ResolveInfo> mSearchResults;
+
+        /**
+         * Current search query in lower case to highlight the names.
+         */
+        String mQuery;
+
         ActivityAdapter(Context context, PackageManager pm, int layoutId) {
             super(context, 0);
             this.packageManager = pm;
             this.mLayoutId = layoutId;
             this.mLayoutInflator = LayoutInflater.from(getContext());
+            this.mLabelIconCache = LabelIconCache.getInstance(context);
+        }
+
+        @Override
+        public int search(@NonNull String query) {
+            if (query.length() == 0) {
+                mQuery = null;
+                mSearchResults = null;
+            } else {
+                if (mSearchIndex == null) {
+                    mSearchIndex = new SearchIndex<ResolveInfo>();
+                    for (int i = 0; i < super.getCount(); i++) {
+                        mSearchIndex.add(super.getItem(i),
+                                mLabelIconCache.getLabel(super.getItem(i)));
+                    }
+                }
+
+                mQuery = query.toLowerCase(Locale.getDefault());
+                mSearchResults = mSearchIndex.filter(mQuery);
+            }
+
+            notifyDataSetChanged();
+            return getCount();
+        }
+
+        @Override
+        public void addAll(Collection<? extends ResolveInfo> collection) {
+            super.addAll(collection);
+
+            if (mSearchIndex != null) {
+                for (ResolveInfo resolveInfo : collection) {
+                    mSearchIndex.add(resolveInfo, mLabelIconCache.getLabel(resolveInfo));
+                }
+
+                if (mQuery != null) {
+                    mSearchResults = mSearchIndex.filter(mQuery);
+                }
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return mSearchResults != null ? mSearchResults.size() : super.getCount();
+        }
+
+        @Override
+        public ResolveInfo getItem(int position) {
+            return mSearchResults != null ? mSearchResults.get(position)
+                    : super.getItem(position);
+        }
+
+        @Override
+        public void prefetch(int position) {
+            mLabelIconCache.prefetch(getItem(position));
         }
 
         @Override
         public View getView(int position, View convertView, ViewGroup parent) {
             ViewHolder viewHolder;
             if (convertView == null) {
-                convertView = mLayoutInflator.inflate(mLayoutId, parent, false);
+                convertView = ViewPool.getInstance().obtain(mLayoutInflator, mLayoutId, parent);
                 viewHolder = new ViewHolder(convertView);
                 convertView.setTag(viewHolder);
             } else {
                 viewHolder = (ViewHolder) convertView.getTag();
             }
 
-            viewHolder.name.setText(getItem(position).loadLabel(packageManager));
-            viewHolder.icon.setImageDrawable(getItem(position).loadIcon(packageManager));
+            viewHolder.name.setText(mLabelIconCache.getLabel(getItem(position)));
+            mLabelIconCache.loadIcon(getItem(position), viewHolder.icon);
+
+            if (mQuery != null) {
+                int[] match = SearchIndex.findMatch(viewHolder.name.getText(), mQuery);
+                if (match != null) {
+                    DynamicTheme.highlightTextColor(viewHolder.name, match[0], match[1],
+                            SmallTheme.getInstance().getColorFromType(ColorType.ACCENT));
+                }
+            }
 
             return convertView;
         }
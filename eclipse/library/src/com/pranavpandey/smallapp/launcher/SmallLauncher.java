@@ -20,6 +20,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import com.pranavpandey.smallapp.R;
+import com.pranavpandey.smallapp.resolver.PackageMonitor;
 import com.sony.smallapp.SdkInfo;
 import com.sony.smallapp.SmallApplicationManager;
 import com.sony.smallapp.StartSmallAppConnection;
@@ -29,6 +30,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
+import android.util.LruCache;
 import android.widget.Toast;
 
 /**
@@ -57,6 +59,24 @@ public class SmallLauncher {
      */
     public static final String PERMISSION_SMALLAPP = "com.sony.smallapp.permission.SMALLAPP";
 
+    /**
+     * Maximum no. of small app service names to be cached.
+     */
+    private static final int SERVICE_CACHE_SIZE = 32;
+
+    /**
+     * Cache of the small app service names for each package. It will be
+     * used only after the package changes are being monitored.
+     */
+    private static final LruCache<String, String> sServiceNames =
+            new LruCache<String, String>(SERVICE_CACHE_SIZE);
+
+    /**
+     * <code>true</code> if the package changes are being monitored to
+     * invalidate {@link #sServiceNames}.
+     */
+    private static boolean sMonitoring;
+
     /**
      * Launch a small app from its package name.
      *
@@ -70,6 +90,8 @@ public class SmallLauncher {
     public static boolean launchSmallApp(Context context, PackageManager packageManager,
                                          String packageName) {
         try {
+            monitorPackages(context);
+
             if (SdkInfo.VERSION.API_LEVEL >= 2) {
                 SmallApplicationManager.startApplication(context,
                         getSmallAppIntent(context, packageManager, packageName));
@@ -104,25 +126,13 @@ public class SmallLauncher {
      */
     public static Intent getSmallAppIntent(Context context, PackageManager packageManager,
                                            String packageName) {
-        Intent smallIntent = new Intent(ACTION_MAIN);
-        smallIntent.setPackage(packageName);
-        smallIntent.addCategory(CATEGORY_LAUNCHER);
-
-        List<?> list = packageManager.queryIntentServices(smallIntent, 0);
-        if (list != null) {
-            ResolveInfo resolveInfo = null;
-            Iterator<?> iterator = list.iterator();
-            while (iterator.hasNext()) {
-                resolveInfo = (ResolveInfo) iterator.next();
-            }
+        monitorPackages(context);
 
-            if (resolveInfo != null) {
-                Intent smallLaunchIntent = new Intent();
-                smallLaunchIntent.setClass(context, resolveInfo.serviceInfo.getClass());
-                smallLaunchIntent.setComponent(new ComponentName(packageName,
-                        resolveInfo.serviceInfo.name));
-                return smallLaunchIntent;
-            }
+        String serviceName = getSmallAppClassName(packageManager, packageName);
+        if (serviceName != null) {
+            Intent smallLaunchIntent = new Intent();
+            smallLaunchIntent.setComponent(new ComponentName(packageName, serviceName));
+            return smallLaunchIntent;
         }
         return null;
     }
@@ -136,6 +146,15 @@ public class SmallLauncher {
      * @return Main class name of the small app.
      */
     public static String getSmallAppClassName(PackageManager packageManager, String packageName) {
+        synchronized (SmallLauncher.class) {
+            if (sMonitoring) {
+                String serviceName = sServiceNames.get(packageName);
+                if (serviceName != null) {
+                    return serviceName;
+                }
+            }
+        }
+
         Intent smallIntent = new Intent(ACTION_MAIN);
         smallIntent.setPackage(packageName);
         smallIntent.addCategory(CATEGORY_LAUNCHER);
@@ -149,9 +168,39 @@ public class SmallLauncher {
             }
 
             if (resolveInfo != null) {
+                synchronized (SmallLauncher.class) {
+                    if (sMonitoring) {
+                        sServiceNames.put(packageName, resolveInfo.serviceInfo.name);
+                    }
+                }
                 return resolveInfo.serviceInfo.name;
             }
         }
         return null;
     }
+
+    /**
+     * Start monitoring the package changes to invalidate the cached small
+     * app service names. It will be done only once per process.
+     *
+     * @param context to listen package changes.
+     *
+     * @see PackageMonitor
+     */
+    private static synchronized void monitorPackages(Context context) {
+        if (sMonitoring) {
+            return;
+        }
+
+        PackageMonitor.getInstance(context).registerListener(
+                new PackageMonitor.OnPackageChangedListener() {
+                    @Override
+                    public void onPackageChanged(String packageName, int change) {
+                        synchronized (SmallLauncher.class) {
+                            sServiceNames.remove(packageName);
+                        }
+                    }
+                });
+        sMonitoring = true;
+    }
 }
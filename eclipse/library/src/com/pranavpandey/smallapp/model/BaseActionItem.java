@@ -68,6 +68,15 @@ public class BaseActionItem {
         this.isColorizable = colorizable;
     }
 
+    /**
+     * Constructor to create a copy of the supplied {@link BaseActionItem}.
+     *
+     * @param item The action item to be copied.
+     */
+    public BaseActionItem(BaseActionItem item) {
+        this(item.getActionId(), item.getNameId(), item.getIconId(), item.isColorizable());
+    }
+
     /**
      * Set the unique id to perform actions in the {@link BaseActionItem}.
      *
@@ -149,4 +158,18 @@ public class BaseActionItem {
     public boolean isColorizable() {
         return isColorizable;
     }
+
+    /**
+     * Compare the displayed values of this action item with another one
+     * having the same action id.
+     *
+     * @param item The action item to be compared.
+     *
+     * @return <code>true</code> if both the action items will be displayed
+     * in the same way.
+     */
+    public boolean isContentSame(BaseActionItem item) {
+        return mNameId == item.getNameId() && mIconId == item.getIconId()
+                && isColorizable == item.isColorizable();
+    }
 }
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2016 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.smallapp.resolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.util.LruCache;
+
+/**
+ * A class to resolve the activities which can handle an intent and cache
+ * the results so that the repeated queries will not perform an IPC call
+ * to the PackageManager. Results are keyed on the normalized action, type,
+ * scheme, host and categories of the intent and the affected results will
+ * be cleared whenever a package is added, removed or changed.
+ *
+ * <p>It is a process wide singleton, use {@link #getInstance(Context)} to
+ * access it.</p>
+ */
+public class IntentResolver {
+
+    /**
+     * Interface definition for a callback to be invoked when a batch of
+     * intents has been resolved.
+     */
+    public interface OnIntentsResolvedListener {
+
+        /**
+         * Called on the main thread when all the intents have been resolved.
+         *
+         * @param intents The intents which were supplied to resolve.
+         * @param results Activities resolved for each intent in the same
+         * order. A list will be empty if there is no matching activity.
+         */
+        void onIntentsResolved(List<Intent> intents, List<List<ResolveInfo>> results);
+    }
+
+    /**
+     * Maximum no. of intents for which the results will be cached.
+     */
+    public static final int CACHE_SIZE = 32;
+
+    /**
+     * Maximum no. of threads to resolve intents in the background.
+     */
+    public static final int THREAD_POOL_SIZE = 2;
+
+    /**
+     * Singleton instance of {@link IntentResolver}.
+     */
+    private static IntentResolver sInstance;
+
+    /**
+     * Application context to query activities and to register receiver.
+     */
+    private final Context mContext;
+
+    /**
+     * PackageManager to query activities.
+     */
+    private final PackageManager mPackageManager;
+
+    /**
+     * Cache of the resolved activities for each normalized intent.
+     */
+    private final LruCache<String, List<ResolveInfo>> mCache;
+
+    /**
+     * Executor to resolve intents in the background.
+     */
+    private final ExecutorService mExecutor;
+
+    /**
+     * Incremented on every invalidation so that a result queried before
+     * the invalidation will not be cached after it.
+     */
+    private int mGeneration;
+
+    /**
+     * Cannot be called directly, use {@link #getInstance(Context)}.
+     * Constructor using a context to initialize the resolver and listen
+     * package changes.
+     */
+    private IntentResolver(Context context) {
+        this.mContext = context.getApplicationContext();
+        this.mPackageManager = mContext.getPackageManager();
+        this.mCache = new LruCache<String, List<ResolveInfo>>(CACHE_SIZE);
+        this.mExecutor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+
+        PackageMonitor.getInstance(mContext).registerListener(
+                new PackageMonitor.OnPackageChangedListener() {
+                    @Override
+                    public void onPackageChanged(String packageName, int change) {
+                        invalidate(packageName, change);
+                    }
+                });
+    }
+
+    /**
+     * Get instance to access public methods. It will be initialized on
+     * first access.
+     *
+     * @param context to initialize the resolver.
+     *
+     * @return {@link #sInstance} Singleton {@link IntentResolver} instance.
+     */
+    public static synchronized IntentResolver getInstance(Context context) {
+        if (context == null) {
+            throw new NullPointerException("Context should not be null");
+        }
+
+        if (sInstance == null) {
+            sInstance = new IntentResolver(context);
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Retrieve all the activities that can be performed for the supplied
+     * intent. Results will be served from the cache if the same normalized
+     * intent has been resolved before.
+     *
+     * @param intent The desired intent as per resolveActivity().
+     * @param flags Additional option flags to be passed to the
+     * PackageManager.
+     *
+     * @return A modifiable copy of the resolved activities. It will be an
+     * empty list if there is no matching activity.
+     *
+     * @see PackageManager#queryIntentActivities(Intent, int)
+     */
+    public List<ResolveInfo> queryIntentActivities(@NonNull Intent intent, int flags) {
+        String key = getKey(intent, flags);
+        List<ResolveInfo> launchables = mCache.get(key);
+
+        if (launchables == null) {
+            int generation = getGeneration();
+            launchables = mPackageManager.queryIntentActivities(intent, flags);
+            if (launchables == null) {
+                launchables = new ArrayList<ResolveInfo>();
+            }
+
+            synchronized (this) {
+                // Packages may have been changed while querying.
+                if (generation == mGeneration) {
+                    mCache.put(key, Collections.unmodifiableList(
+                            new ArrayList<ResolveInfo>(launchables)));
+                }
+            }
+        }
+
+        return new ArrayList<ResolveInfo>(launchables);
+    }
+
+    /**
+     * Retrieve all the activities that can be performed for each of the
+     * supplied intents. Equivalent intents will be queried only once and
+     * the queries will be performed in parallel on the background threads.
+     * It blocks until all the intents have been resolved and the calling
+     * thread will perform the queries which have not been started yet so,
+     * it can also be called from a task running on
+     * {@link #execute(Runnable)}.
+     *
+     * @param intents The desired intents as per resolveActivity().
+     * @param flags Additional option flags to be passed to the
+     * PackageManager.
+     *
+     * @return Modifiable copies of the resolved activities for each intent
+     * in the same order.
+     *
+     * @see #queryIntentActivities(Intent, int)
+     */
+    public List<List<ResolveInfo>> queryIntentActivities(
+            @NonNull List<Intent> intents, final int flags) {
+        Map<String, FutureTask<List<ResolveInfo>>> futures =
+                new LinkedHashMap<String, FutureTask<List<ResolveInfo>>>();
+        List<String> keys = new ArrayList<String>(intents.size());
+
+        for (final Intent intent : intents) {
+            String key = getKey(intent, flags);
+            keys.add(key);
+
+            if (!futures.containsKey(key)) {
+                FutureTask<List<ResolveInfo>> future = new FutureTask<List<ResolveInfo>>(
+                        new Callable<List<ResolveInfo>>() {
+                            @Override
+                            public List<ResolveInfo> call() {
+                                return queryIntentActivities(intent, flags);
+                            }
+                        });
+
+                futures.put(key, future);
+                mExecutor.execute(future);
+            }
+        }
+
+        List<List<ResolveInfo>> results = new ArrayList<List<ResolveInfo>>(intents.size());
+        for (int i = 0; i < intents.size(); i++) {
+            List<ResolveInfo> launchables;
+
+            FutureTask<List<ResolveInfo>> future = futures.get(keys.get(i));
+            try {
+                // Run it on this thread if no background thread has picked it yet.
+                future.run();
+                launchables = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                launchables = queryIntentActivities(intents.get(i), flags);
+            } catch (ExecutionException e) {
+                launchables = queryIntentActivities(intents.get(i), flags);
+            }
+
+            results.add(new ArrayList<ResolveInfo>(launchables));
+        }
+
+        return results;
+    }
+
+    /**
+     * Retrieve all the activities that can be performed for each of the
+     * supplied intents without blocking the calling thread. Equivalent
+     * intents will be queried only once and the queries will be performed
+     * in parallel on the background threads.
+     *
+     * @param intents The desired intents as per resolveActivity().
+     * @param flags Additional option flags to be passed to the
+     * PackageManager.
+     * @param listener Listener to get the results on the main thread.
+     *
+     * @see #queryIntentActivities(List, int)
+     */
+    public void queryIntentActivities(@NonNull List<Intent> intents, final int flags,
+                                      @NonNull final OnIntentsResolvedListener listener) {
+        final List<Intent> batch = new ArrayList<Intent>(intents);
+        final List<String> keys = new ArrayList<String>(batch.size());
+        final Map<String, Intent> uniqueIntents = new LinkedHashMap<String, Intent>();
+        for (Intent intent : batch) {
+            String key = getKey(intent, flags);
+            keys.add(key);
+
+            if (!uniqueIntents.containsKey(key)) {
+                uniqueIntents.put(key, intent);
+            }
+        }
+
+        final Map<String, List<ResolveInfo>> resolved =
+                new ConcurrentHashMap<String, List<ResolveInfo>>();
+        final Handler handler = new Handler(Looper.getMainLooper());
+        final AtomicInteger pending = new AtomicInteger(uniqueIntents.size());
+        final Runnable publish = new Runnable() {
+            @Override
+            public void run() {
+                List<List<ResolveInfo>> results =
+                        new ArrayList<List<ResolveInfo>>(batch.size());
+                for (String key : keys) {
+                    List<ResolveInfo> launchables = resolved.get(key);
+                    results.add(launchables != null ? new ArrayList<ResolveInfo>(launchables)
+                            : new ArrayList<ResolveInfo>());
+                }
+
+                listener.onIntentsResolved(batch, results);
+            }
+        };
+
+        if (uniqueIntents.isEmpty()) {
+            handler.post(publish);
+            return;
+        }
+
+        for (final Map.Entry<String, Intent> entry : uniqueIntents.entrySet()) {
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        resolved.put(entry.getKey(),
+                                queryIntentActivities(entry.getValue(), flags));
+                    } finally {
+                        if (pending.decrementAndGet() == 0) {
+                            handler.post(publish);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Execute a task on the background threads used to resolve intents.
+     *
+     * @param runnable The task to be executed.
+     */
+    public void execute(@NonNull Runnable runnable) {
+        mExecutor.execute(runnable);
+    }
+
+    /**
+     * @return The current generation of the cached results.
+     */
+    private synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Clear all the cached results.
+     */
+    public synchronized void invalidate() {
+        mGeneration++;
+        mCache.evictAll();
+    }
+
+    /**
+     * Clear the cached results affected by a package change. A removed
+     * package will only evict the results containing its activities while
+     * the other changes may add new activities to any result so, all the
+     * results will be cleared.
+     *
+     * @param packageName The package which has been changed.
+     * @param change The kind of change.
+     *
+     * @see PackageMonitor.Change
+     */
+    public synchronized void invalidate(@NonNull String packageName, int change) {
+        if (change != PackageMonitor.Change.REMOVED) {
+            invalidate();
+            return;
+        }
+
+        mGeneration++;
+        for (Map.Entry<String, List<ResolveInfo>> entry : mCache.snapshot().entrySet()) {
+            for (ResolveInfo resolveInfo : entry.getValue()) {
+                if (packageName.equals(resolveInfo.activityInfo.packageName)) {
+                    mCache.remove(entry.getKey());
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Build a normalized key for the supplied intent. It is made of the
+     * flags, action, lower-cased type, scheme and host, sorted categories,
+     * component and package of the intent. For the untyped data, extension
+     * of its last path segment will also be used.
+     *
+     * <p>It is an approximation as the port and path are ignored, so the
+     * intents whose activities filter the data by them may share a key
+     * even if they resolve to different activities.</p>
+     *
+     * @param intent to build the key.
+     * @param flags to be passed to the PackageManager.
+     *
+     * @return Normalized key for the intent.
+     */
+    String getKey(@NonNull Intent intent, int flags) {
+        StringBuilder key = new StringBuilder();
+        key.append(flags).append('|').append(intent.getAction());
+
+        String type = intent.resolveType(mContext);
+        key.append('|').append(type != null ? type.toLowerCase(Locale.US) : null);
+
+        Uri data = intent.getData();
+        if (data != null) {
+            key.append('|').append(data.getScheme() != null
+                    ? data.getScheme().toLowerCase(Locale.US) : null);
+            key.append('|').append(data.getHost() != null
+                    ? data.getHost().toLowerCase(Locale.US) : null);
+
+            // Activities may filter the untyped data by its extension.
+            String segment = data.getLastPathSegment();
+            if (type == null && segment != null && segment.lastIndexOf('.') != -1) {
+                key.append('|').append(segment.substring(segment.lastIndexOf('.'))
+                        .toLowerCase(Locale.US));
+            }
+        }
+
+        Set<String> categories = intent.getCategories();
+        if (categories != null) {
+            List<String> sortedCategories = new ArrayList<String>(categories);
+            Collections.sort(sortedCategories);
+            key.append('|').append(sortedCategories);
+        }
+
+        ComponentName component = intent.getComponent();
+        if (component != null) {
+            key.append("|c:").append(component.flattenToString());
+        }
+
+        if (intent.getPackage() != null) {
+            key.append("|p:").append(intent.getPackage());
+        }
+
+        return key.toString();
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2016 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.smallapp.resolver;
+
+import com.pranavpandey.smallapp.R;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+/**
+ * A class to cache the labels and icons of the activities so that they
+ * will not be loaded from the package resources each time a row is bound.
+ * Entries are keyed by the component name along with the current locale
+ * and density, icons are bounded by their size in bytes and the entries
+ * of a package will be evicted whenever it is changed or removed.
+ *
+ * <p>It is a process wide singleton, use {@link #getInstance(Context)} to
+ * access it.</p>
+ */
+public class LabelIconCache {
+
+    /**
+     * Maximum no. of labels to be cached.
+     */
+    public static final int LABEL_CACHE_SIZE = 256;
+
+    /**
+     * Maximum size of the cached icons in bytes.
+     */
+    public static final int ICON_CACHE_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Singleton instance of {@link LabelIconCache}.
+     */
+    private static LabelIconCache sInstance;
+
+    /**
+     * Application context to retrieve resources.
+     */
+    private final Context mContext;
+
+    /**
+     * PackageManager to load labels and icons.
+     */
+    private final PackageManager mPackageManager;
+
+    /**
+     * Cache of the activity labels.
+     */
+    private final LruCache<String, CharSequence> mLabels;
+
+    /**
+     * Cache of the activity icons. Constant state is cached so that a new
+     * drawable can be created for each view.
+     */
+    private final LruCache<String, Icon> mIcons;
+
+    /**
+     * Handler to set the icons loaded in the background.
+     */
+    private final Handler mHandler;
+
+    /**
+     * Placeholder to be displayed while an icon is being loaded.
+     */
+    private Drawable.ConstantState mPlaceholder;
+
+    /**
+     * Cannot be called directly, use {@link #getInstance(Context)}.
+     * Constructor using a context to initialize the cache and listen
+     * package changes.
+     */
+    private LabelIconCache(Context context) {
+        this.mContext = context.getApplicationContext();
+        this.mPackageManager = mContext.getPackageManager();
+        this.mHandler = new Handler(Looper.getMainLooper());
+        this.mLabels = new LruCache<String, CharSequence>(LABEL_CACHE_SIZE);
+        this.mIcons = new LruCache<String, Icon>(ICON_CACHE_SIZE) {
+            @Override
+            protected int sizeOf(String key, Icon value) {
+                return value.size;
+            }
+        };
+
+        PackageMonitor.getInstance(mContext).registerListener(
+                new PackageMonitor.OnPackageChangedListener() {
+                    @Override
+                    public void onPackageChanged(String packageName, int change) {
+                        evict(packageName);
+                    }
+                });
+    }
+
+    /**
+     * Get instance to access public methods. It will be initialized on
+     * first access.
+     *
+     * @param context to initialize the cache.
+     *
+     * @return {@link #sInstance} Singleton {@link LabelIconCache} instance.
+     */
+    public static synchronized LabelIconCache getInstance(Context context) {
+        if (context == null) {
+            throw new NullPointerException("Context should not be null");
+        }
+
+        if (sInstance == null) {
+            sInstance = new LabelIconCache(context);
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Build the key for an activity according to the current
+     * configuration.
+     *
+     * @param resolveInfo to build the key.
+     *
+     * @return Key for the activity.
+     */
+    private String getKey(@NonNull ResolveInfo resolveInfo) {
+        return resolveInfo.activityInfo.packageName + "/" + resolveInfo.activityInfo.name
+                + "|" + mContext.getResources().getConfiguration().locale
+                + "|" + mContext.getResources().getDisplayMetrics().densityDpi;
+    }
+
+    /**
+     * Retrieve the label of an activity. It will be loaded from the
+     * package if it is not cached.
+     *
+     * @param resolveInfo to retrieve the label.
+     *
+     * @return Label of the activity.
+     */
+    public CharSequence getLabel(@NonNull ResolveInfo resolveInfo) {
+        String key = getKey(resolveInfo);
+        CharSequence label = mLabels.get(key);
+
+        if (label == null) {
+            label = resolveInfo.loadLabel(mPackageManager);
+            mLabels.put(key, label);
+        }
+
+        return label;
+    }
+
+    /**
+     * Retrieve the icon of an activity. It will be loaded from the
+     * package if it is not cached.
+     *
+     * @param resolveInfo to retrieve the icon.
+     *
+     * @return A new drawable of the activity icon.
+     */
+    public Drawable getIcon(@NonNull ResolveInfo resolveInfo) {
+        String key = getKey(resolveInfo);
+        Icon icon = mIcons.get(key);
+
+        if (icon == null) {
+            icon = loadIcon(key, resolveInfo);
+        }
+
+        return icon.newDrawable();
+    }
+
+    /**
+     * Set the icon of an activity to the supplied image view. If the icon
+     * is not cached then, a placeholder will be displayed and the icon will
+     * be loaded in the background.
+     *
+     * @param resolveInfo to retrieve the icon.
+     * @param imageView to display the icon.
+     */
+    public void loadIcon(@NonNull final ResolveInfo resolveInfo,
+                         @NonNull final ImageView imageView) {
+        final String key = getKey(resolveInfo);
+        Icon icon = mIcons.get(key);
+
+        imageView.setTag(R.id.action_icon, key);
+        if (icon != null) {
+            imageView.setImageDrawable(icon.newDrawable());
+            return;
+        }
+
+        imageView.setImageDrawable(getPlaceholder());
+        IntentResolver.getInstance(mContext).execute(new Runnable() {
+            @Override
+            public void run() {
+                final Icon loadedIcon = loadIcon(key, resolveInfo);
+
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Do not set icon if the view has been recycled.
+                        if (key.equals(imageView.getTag(R.id.action_icon))) {
+                            imageView.setImageDrawable(loadedIcon.newDrawable());
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Load the label and icon of an activity in the background if they are
+     * not cached so that they will be available when it will be displayed.
+     *
+     * @param resolveInfo to load the label and icon.
+     */
+    public void prefetch(@NonNull final ResolveInfo resolveInfo) {
+        final String key = getKey(resolveInfo);
+        if (mLabels.get(key) != null && mIcons.get(key) != null) {
+            return;
+        }
+
+        IntentResolver.getInstance(mContext).execute(new Runnable() {
+            @Override
+            public void run() {
+                getLabel(resolveInfo);
+                if (mIcons.get(key) == null) {
+                    loadIcon(key, resolveInfo);
+                }
+            }
+        });
+    }
+
+    /**
+     * Load the icon of an activity from its package and cache it.
+     *
+     * @param key of the activity.
+     * @param resolveInfo to load the icon.
+     *
+     * @return The loaded icon.
+     */
+    private Icon loadIcon(String key, @NonNull ResolveInfo resolveInfo) {
+        Icon icon = new Icon(resolveInfo.loadIcon(mPackageManager));
+        mIcons.put(key, icon);
+
+        return icon;
+    }
+
+    /**
+     * @return A new drawable of the default activity icon to be displayed
+     * as placeholder.
+     */
+    private Drawable getPlaceholder() {
+        if (mPlaceholder == null) {
+            mPlaceholder = mPackageManager.getDefaultActivityIcon().getConstantState();
+        }
+
+        return mPlaceholder.newDrawable(mContext.getResources());
+    }
+
+    /**
+     * Evict the labels and icons of all the activities of a package.
+     *
+     * @param packageName The package whose entries to be evicted.
+     */
+    public void evict(@NonNull String packageName) {
+        String prefix = packageName + "/";
+
+        for (String key : mLabels.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                mLabels.remove(key);
+            }
+        }
+
+        for (String key : mIcons.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                mIcons.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Evict all the cached labels and icons.
+     */
+    public void evictAll() {
+        mLabels.evictAll();
+        mIcons.evictAll();
+    }
+
+    /**
+     * Class to hold the constant state of an icon with its size in bytes.
+     */
+    private class Icon {
+
+        /**
+         * Constant state to create a new drawable for each view.
+         */
+        final Drawable.ConstantState state;
+
+        /**
+         * Drawable to be used if it has no constant state.
+         */
+        final Drawable drawable;
+
+        /**
+         * Approximate size of the icon in bytes.
+         */
+        final int size;
+
+        Icon(Drawable drawable) {
+            this.drawable = drawable;
+            this.state = drawable.getConstantState();
+
+            if (drawable instanceof BitmapDrawable
+                    && ((BitmapDrawable) drawable).getBitmap() != null) {
+                this.size = ((BitmapDrawable) drawable).getBitmap().getByteCount();
+            } else {
+                this.size = Math.max(1, drawable.getIntrinsicWidth()
+                        * drawable.getIntrinsicHeight() * 4);
+            }
+        }
+
+        /**
+         * @return A new drawable for this icon.
+         */
+        Drawable newDrawable() {
+            return state != null ? state.newDrawable() : drawable;
+        }
+    }
+}
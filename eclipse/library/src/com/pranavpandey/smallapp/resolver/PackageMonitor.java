@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.smallapp.resolver;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.support.annotation.NonNull;
+
+/**
+ * A class to listen the package changes once per process and dispatch
+ * them to all the registered caches so that they can invalidate their
+ * entries. Each event consists of the package name along with the kind
+ * of change.
+ *
+ * <p>It is a process wide singleton, use {@link #getInstance(Context)} to
+ * access it.</p>
+ */
+public class PackageMonitor {
+
+    /**
+     * Interface definition for a callback to be invoked when a package
+     * has been changed.
+     */
+    public interface OnPackageChangedListener {
+
+        /**
+         * Called on the main thread when a package has been changed.
+         *
+         * @param packageName The package which has been changed.
+         * @param change The kind of change.
+         *
+         * @see Change
+         */
+        void onPackageChanged(String packageName, int change);
+    }
+
+    /**
+     * Class to hold the constant values for the kind of package change.
+     */
+    public static class Change {
+
+        /**
+         * Constant for a newly installed package.
+         */
+        public static final int ADDED = 0;
+
+        /**
+         * Constant for a removed package.
+         */
+        public static final int REMOVED = 1;
+
+        /**
+         * Constant for a package whose components have been enabled or
+         * disabled, or which has become available or unavailable on the
+         * external storage.
+         */
+        public static final int CHANGED = 2;
+
+        /**
+         * Constant for a package which has been updated to a new version.
+         */
+        public static final int REPLACED = 3;
+    }
+
+    /**
+     * Singleton instance of {@link PackageMonitor}.
+     */
+    private static PackageMonitor sInstance;
+
+    /**
+     * Listeners to be notified on package changes.
+     */
+    private final List<OnPackageChangedListener> mListeners =
+            new CopyOnWriteArrayList<OnPackageChangedListener>();
+
+    /**
+     * Cannot be called directly, use {@link #getInstance(Context)}.
+     * Constructor using a context to register the receivers to listen
+     * package changes.
+     */
+    private PackageMonitor(Context context) {
+        Context appContext = context.getApplicationContext();
+        BroadcastReceiver receiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                dispatch(intent);
+            }
+        };
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        appContext.registerReceiver(receiver, filter);
+
+        IntentFilter externalFilter = new IntentFilter();
+        externalFilter.addAction(Intent.ACTION_EXTERNAL_APPLICATIONS_AVAILABLE);
+        externalFilter.addAction(Intent.ACTION_EXTERNAL_APPLICATIONS_UNAVAILABLE);
+        appContext.registerReceiver(receiver, externalFilter);
+    }
+
+    /**
+     * Get instance to access public methods. It will be initialized on
+     * first access.
+     *
+     * @param context to register the receivers.
+     *
+     * @return {@link #sInstance} Singleton {@link PackageMonitor} instance.
+     */
+    public static synchronized PackageMonitor getInstance(Context context) {
+        if (context == null) {
+            throw new NullPointerException("Context should not be null");
+        }
+
+        if (sInstance == null) {
+            sInstance = new PackageMonitor(context);
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Register a listener to be notified on package changes.
+     *
+     * @param listener The listener to be registered.
+     */
+    public void registerListener(@NonNull OnPackageChangedListener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+    }
+
+    /**
+     * Unregister a previously registered listener.
+     *
+     * @param listener The listener to be unregistered.
+     */
+    public void unregisterListener(@NonNull OnPackageChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Convert a package broadcast into change events and dispatch them to
+     * all the registered listeners.
+     *
+     * @param intent The received broadcast.
+     */
+    private void dispatch(Intent intent) {
+        String action = intent.getAction();
+
+        if (Intent.ACTION_EXTERNAL_APPLICATIONS_AVAILABLE.equals(action)
+                || Intent.ACTION_EXTERNAL_APPLICATIONS_UNAVAILABLE.equals(action)) {
+            String[] packages = intent.getStringArrayExtra(
+                    Intent.EXTRA_CHANGED_PACKAGE_LIST);
+            if (packages != null) {
+                for (String packageName : packages) {
+                    dispatch(packageName, Change.CHANGED);
+                }
+            }
+        } else if (intent.getData() != null) {
+            String packageName = intent.getData().getSchemeSpecificPart();
+
+            if (Intent.ACTION_PACKAGE_ADDED.equals(action)) {
+                dispatch(packageName, Change.ADDED);
+            } else if (Intent.ACTION_PACKAGE_REMOVED.equals(action)) {
+                dispatch(packageName, Change.REMOVED);
+            } else if (Intent.ACTION_PACKAGE_CHANGED.equals(action)) {
+                dispatch(packageName, Change.CHANGED);
+            } else if (Intent.ACTION_PACKAGE_REPLACED.equals(action)) {
+                dispatch(packageName, Change.REPLACED);
+            }
+        }
+    }
+
+    /**
+     * Dispatch a change event to all the registered listeners.
+     *
+     * @param packageName The package which has been changed.
+     * @param change The kind of change.
+     */
+    private void dispatch(String packageName, int change) {
+        for (OnPackageChangedListener listener : mListeners) {
+            listener.onPackageChanged(packageName, change);
+        }
+    }
+}
@@ -226,6 +226,31 @@ public class DynamicTheme {
         return colorizeDrawable(coloredDrawable, color);
     }
 
+    /**
+     * Highlight a part of the text within a TextView. Suitable for notifying user about
+     * the match found by {@link com.pranavpandey.smallapp.adapter.SearchIndex#findMatch(
+     * CharSequence, CharSequence)}. Please set your default text first then, highlight
+     * the matched part by using this function.
+     *
+     * @param textView to set the highlighted text.
+     * @param start Start position (inclusive) of the text to be highlighted.
+     * @param end End position (exclusive) of the text to be highlighted.
+     * @param color of the highlighted text.
+     *
+     * @see android.text.Spannable
+     */
+    public static void highlightTextColor(@NonNull TextView textView, int start, int end,
+                                          @ColorInt int color) {
+        final String stringText = textView.getText().toString();
+        if (start >= 0 && start < end && end <= stringText.length()) {
+            Spannable spanText = Spannable.Factory.getInstance().newSpannable(stringText);
+            spanText.setSpan(new ForegroundColorSpan(color), start, end,
+                    Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+
+            textView.setText(spanText, TextView.BufferType.SPANNABLE);
+        }
+    }
+
     /**
      * Highlight the query text within a TextView. Suitable for notifying user about the
      * searched query found in the adapter. TextView should not be empty. Please set your
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2016 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.smallapp.view;
+
+import com.pranavpandey.smallapp.R;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.database.DataSetObserver;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.BaseAdapter;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.ListAdapter;
+import android.widget.ListView;
+
+/**
+ * A ListView which displays the items of an adapter in a grid by placing
+ * multiple items in each row. It supports <code>android:numColumns</code>
+ * like a GridView, columns will fit the available width if it is not set
+ * or <code>auto_fit</code>. Unlike {@link HeaderGridView} in its expanded
+ * form, it supports scrolling header views while still recycling the item
+ * views so that only the visible items will be inflated and measured.
+ *
+ * <p>Use {@link #setGridAdapter(ListAdapter)} and
+ * {@link #setOnGridItemClickListener(OnItemClickListener)} for the items,
+ * header clicks will be dispatched to the usual item click listener.</p>
+ */
+public class HeaderGridListView extends ListView {
+
+    /**
+     * Constant to fit the columns according to the available width.
+     */
+    public static final int AUTO_FIT = -1;
+
+    /**
+     * Minimum width of a column in pixels.
+     */
+    private int mColumnWidth;
+
+    /**
+     * No. of columns requested or {@link #AUTO_FIT}.
+     */
+    private int mRequestedNumColumns = AUTO_FIT;
+
+    /**
+     * No. of columns according to the current width.
+     */
+    private int mNumColumns = 1;
+
+    /**
+     * Background resource for each item to show its pressed state.
+     */
+    private int mItemBackground;
+
+    /**
+     * Adapter to group the items into rows.
+     */
+    private GridRowAdapter mGridAdapter;
+
+    /**
+     * Listener used to dispatch item click events.
+     */
+    private @Nullable OnItemClickListener mGridItemClickListener;
+
+    /**
+     * Listener shared by all the cells to dispatch their clicks according
+     * to the item position in their tag.
+     */
+    private final OnClickListener mCellClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            CellTag tag = (CellTag) v.getTag();
+            if (mGridItemClickListener != null && mGridAdapter != null) {
+                mGridItemClickListener.onItemClick(HeaderGridListView.this,
+                        ((ViewGroup) v).getChildAt(0), tag.position,
+                        mGridAdapter.mAdapter.getItemId(tag.position));
+            }
+        }
+    };
+
+    public HeaderGridListView(Context context) {
+        super(context);
+        initialize(null);
+    }
+
+    public HeaderGridListView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        initialize(attrs);
+    }
+
+    public HeaderGridListView(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+        initialize(attrs);
+    }
+
+    /**
+     * Initialize the columns and item background.
+     *
+     * @param attrs The attributes of the XML tag that is inflating the view.
+     */
+    private void initialize(@Nullable AttributeSet attrs) {
+        mColumnWidth = getResources().getDimensionPixelSize(R.dimen.sas_grid_min_width);
+
+        TypedArray a = getContext().obtainStyledAttributes(attrs,
+                new int[] { android.R.attr.numColumns });
+        try {
+            mRequestedNumColumns = a.getInt(0, AUTO_FIT);
+        } finally {
+            a.recycle();
+        }
+
+        if (mRequestedNumColumns > 0) {
+            mNumColumns = mRequestedNumColumns;
+        }
+
+        a = getContext().obtainStyledAttributes(
+                new int[] { android.R.attr.selectableItemBackground });
+        try {
+            mItemBackground = a.getResourceId(0, 0);
+        } finally {
+            a.recycle();
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+
+        if (w != oldw) {
+            updateNumColumns(w);
+        }
+    }
+
+    /**
+     * Calculate the no. of columns for the supplied width. If it has been
+     * changed then, rows will be updated immediately as the row count
+     * depends on it. It is called before the children are laid out so,
+     * the list will not see a changed count without a notification.
+     *
+     * @param width The width of this view.
+     */
+    private void updateNumColumns(int width) {
+        int availableWidth = width - getPaddingLeft() - getPaddingRight();
+        int numColumns = mRequestedNumColumns > 0 ? mRequestedNumColumns
+                : Math.max(1, availableWidth / Math.max(1, mColumnWidth));
+
+        if (numColumns != mNumColumns) {
+            mNumColumns = numColumns;
+
+            if (mGridAdapter != null) {
+                mGridAdapter.notifyDataSetChanged();
+            }
+        }
+    }
+
+    /**
+     * Set the minimum width of a column. No. of columns will be calculated
+     * to fit the available width.
+     *
+     * @param columnWidth The column width in pixels.
+     */
+    public void setColumnWidth(int columnWidth) {
+        this.mColumnWidth = columnWidth;
+        updateNumColumns(getWidth());
+    }
+
+    /**
+     * Set the no. of columns in the grid.
+     *
+     * @param numColumns The no. of columns or {@link #AUTO_FIT} to fit
+     * them according to the column width.
+     */
+    public void setNumColumns(int numColumns) {
+        this.mRequestedNumColumns = numColumns;
+        updateNumColumns(getWidth());
+    }
+
+    /**
+     * @return The no. of columns according to the current width.
+     */
+    public int getNumColumns() {
+        return mNumColumns;
+    }
+
+    /**
+     * Set the adapter whose items will be displayed in the grid.
+     *
+     * @param adapter The adapter for the grid items.
+     */
+    public void setGridAdapter(@Nullable ListAdapter adapter) {
+        if (mGridAdapter != null) {
+            mGridAdapter.release();
+        }
+
+        mGridAdapter = adapter != null ? new GridRowAdapter(adapter) : null;
+        setAdapter(mGridAdapter);
+    }
+
+    /**
+     * @return The adapter whose items are displayed in the grid.
+     */
+    public @Nullable ListAdapter getGridAdapter() {
+        return mGridAdapter != null ? mGridAdapter.mAdapter : null;
+    }
+
+    /**
+     * Bind the visible items in a range of the grid adapter again without
+     * binding the other items. Use it when the items have been changed in
+     * place, structural changes should be notified by the grid adapter.
+     *
+     * @param positionStart Position of the first changed item.
+     * @param itemCount The no. of changed items.
+     */
+    public void notifyItemRangeChanged(int positionStart, int itemCount) {
+        if (mGridAdapter == null) {
+            return;
+        }
+
+        int firstVisible = getFirstVisiblePosition();
+        for (int i = positionStart; i < positionStart + itemCount; i++) {
+            int position = getHeaderViewsCount() + i / mNumColumns;
+            if (position < firstVisible) {
+                continue;
+            }
+
+            View child = getChildAt(position - firstVisible);
+            if (!(child instanceof LinearLayout)
+                    || ((LinearLayout) child).getChildCount() != mNumColumns) {
+                break;
+            }
+
+            mGridAdapter.bindCell((FrameLayout) ((LinearLayout) child)
+                    .getChildAt(i % mNumColumns), i);
+        }
+    }
+
+    /**
+     * Set a callback to be invoked when a grid item has been clicked.
+     * Position will be of the item in the grid adapter.
+     *
+     * @param listener The callback to be invoked.
+     */
+    public void setOnGridItemClickListener(@Nullable OnItemClickListener listener) {
+        this.mGridItemClickListener = listener;
+    }
+
+    /**
+     * Adapter to place multiple items of the grid adapter in each row.
+     * Each row keeps a container for every column so that the item views
+     * can be recycled along with the rows.
+     */
+    private class GridRowAdapter extends BaseAdapter {
+
+        /**
+         * Adapter for the grid items.
+         */
+        final ListAdapter mAdapter;
+
+        /**
+         * Observer to forward the changes of the grid adapter.
+         */
+        final DataSetObserver mObserver = new DataSetObserver() {
+            @Override
+            public void onChanged() {
+                notifyDataSetChanged();
+            }
+
+            @Override
+            public void onInvalidated() {
+                notifyDataSetInvalidated();
+            }
+        };
+
+        GridRowAdapter(ListAdapter adapter) {
+            this.mAdapter = adapter;
+            mAdapter.registerDataSetObserver(mObserver);
+        }
+
+        /**
+         * Stop listening the changes of the grid adapter.
+         */
+        void release() {
+            mAdapter.unregisterDataSetObserver(mObserver);
+        }
+
+        @Override
+        public int getCount() {
+            return (mAdapter.getCount() + mNumColumns - 1) / mNumColumns;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return mAdapter.getItem(position * mNumColumns);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public boolean areAllItemsEnabled() {
+            return false;
+        }
+
+        @Override
+        public boolean isEnabled(int position) {
+            // Rows are not clickable, each item handles its own click.
+            return false;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            LinearLayout rowView;
+            if (convertView instanceof LinearLayout) {
+                rowView = (LinearLayout) convertView;
+            } else {
+                rowView = new LinearLayout(getContext());
+                rowView.setOrientation(LinearLayout.HORIZONTAL);
+                rowView.setLayoutParams(new AbsListView.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT,
+                        ViewGroup.LayoutParams.WRAP_CONTENT));
+            }
+
+            while (rowView.getChildCount() > mNumColumns) {
+                rowView.removeViewAt(rowView.getChildCount() - 1);
+            }
+
+            while (rowView.getChildCount() < mNumColumns) {
+                FrameLayout cell = new FrameLayout(getContext());
+                cell.setBackgroundResource(mItemBackground);
+                cell.setTag(new CellTag());
+                cell.setOnClickListener(mCellClickListener);
+                rowView.addView(cell, new LinearLayout.LayoutParams(
+                        0, ViewGroup.LayoutParams.WRAP_CONTENT, 1.0f));
+            }
+
+            for (int i = 0; i < mNumColumns; i++) {
+                bindCell((FrameLayout) rowView.getChildAt(i), position * mNumColumns + i);
+            }
+
+            return rowView;
+        }
+
+        /**
+         * Bind an item of the grid adapter to a cell of the row by reusing
+         * its previous item view if possible.
+         *
+         * @param cell The container for the item view.
+         * @param itemPosition Position of the item in the grid adapter.
+         */
+        private void bindCell(FrameLayout cell, int itemPosition) {
+            CellTag tag = (CellTag) cell.getTag();
+
+            if (itemPosition >= mAdapter.getCount()) {
+                cell.setVisibility(View.INVISIBLE);
+                cell.setClickable(false);
+                return;
+            }
+
+            int viewType = mAdapter.getItemViewType(itemPosition);
+            View convertView = cell.getChildCount() > 0 && viewType == tag.viewType
+                    ? cell.getChildAt(0) : null;
+            View itemView = mAdapter.getView(itemPosition, convertView, cell);
+
+            if (itemView != convertView) {
+                cell.removeAllViews();
+                cell.addView(itemView);
+            }
+
+            tag.viewType = viewType;
+            tag.position = itemPosition;
+            cell.setVisibility(View.VISIBLE);
+            cell.setClickable(true);
+            cell.setEnabled(mAdapter.isEnabled(itemPosition));
+        }
+    }
+
+    /**
+     * Tag of a cell to hold the view type and position of its item.
+     */
+    private static class CellTag {
+
+        /**
+         * View type of the item view in the cell.
+         */
+        int viewType = ITEM_VIEW_TYPE_IGNORE;
+
+        /**
+         * Position of the item in the grid adapter.
+         */
+        int position;
+    }
+}
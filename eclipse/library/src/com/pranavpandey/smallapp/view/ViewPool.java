@@ -0,0 +1,346 @@
+/*
+ * Copyright 2016 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.smallapp.view;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.content.Context;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.LinearLayout;
+
+/**
+ * A pool of views which are inflated in advance on a background thread so
+ * that the dialogs and adapters can take them instead of inflating on the
+ * UI thread. Views are pooled separately for each context and will only be
+ * used for the inflaters of the same context.
+ *
+ * <p>Inflating on a background thread is safe only for the layouts whose
+ * views do not create a Handler, animator or any other thread bound object
+ * while being constructed, e.g. plain layouts with text and image views like
+ * the action rows and items of this library. Do not pool the layouts with
+ * list, grid, edit text, progress or web views.</p>
+ *
+ * <p>It is a process wide singleton, use {@link #getInstance()} to access
+ * it. It also keeps the no. of hits and misses to tune the pool size.</p>
+ */
+public class ViewPool {
+
+    /**
+     * Default no. of views to be inflated in advance for a row or item
+     * layout.
+     */
+    public static final int DEFAULT_SIZE = 6;
+
+    /**
+     * Singleton instance of {@link ViewPool}.
+     */
+    private static ViewPool sInstance;
+
+    /**
+     * Tag to log the layouts which cannot be inflated in the background.
+     */
+    private static final String TAG = "ViewPool";
+
+    /**
+     * Views inflated in advance for each layout of a context.
+     */
+    private final Map<Context, SparseArray<List<View>>> mViews =
+            new HashMap<Context, SparseArray<List<View>>>();
+
+    /**
+     * Contexts which have been cleared, views inflated for them in the
+     * background will be discarded so that they can be released.
+     */
+    private final Set<Context> mCleared =
+            Collections.newSetFromMap(new WeakHashMap<Context, Boolean>());
+
+    /**
+     * Layouts which cannot be inflated on a background thread.
+     */
+    private final SparseBooleanArray mUnsupported = new SparseBooleanArray();
+
+    /**
+     * Executor to inflate views in the background.
+     */
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * No. of views taken from the pool.
+     */
+    private final AtomicInteger mHits = new AtomicInteger();
+
+    /**
+     * No. of views inflated on demand because the pool was empty.
+     */
+    private final AtomicInteger mMisses = new AtomicInteger();
+
+    /**
+     * Cannot be called directly, use {@link #getInstance()}.
+     */
+    private ViewPool() {
+    }
+
+    /**
+     * Get instance to access public methods. It will be initialized on
+     * first access.
+     *
+     * @return {@link #sInstance} Singleton {@link ViewPool} instance.
+     */
+    public static synchronized ViewPool getInstance() {
+        if (sInstance == null) {
+            sInstance = new ViewPool();
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Inflate views for a layout on a background thread until the pool
+     * has the supplied no. of views for it. The layout must be safe to be
+     * inflated on a background thread, a layout which fails to inflate will
+     * not be pooled again and will always be inflated on demand.
+     *
+     * @param context to inflate the views. Views will be used only for
+     * the inflaters created from the same context.
+     * @param layoutId The layout to be inflated.
+     * @param count The no. of views to be kept in the pool.
+     */
+    public void preInflate(@NonNull final Context context,
+                           @LayoutRes final int layoutId, final int count) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Use a separate inflater as it is not thread safe. Its context
+                // must match the inflaters which will take these views.
+                Context inflaterContext = getPoolContext(context);
+                LayoutInflater inflater = LayoutInflater.from(context)
+                        .cloneInContext(inflaterContext);
+                ViewGroup parent = new LinearLayout(inflaterContext);
+
+                while (isSupported(layoutId) && !isCleared(inflaterContext)
+                        && getSize(inflaterContext, layoutId) < count) {
+                    View view;
+                    try {
+                        view = inflater.inflate(layoutId, parent, false);
+                    } catch (RuntimeException e) {
+                        Log.w(TAG, "Layout cannot be inflated in the background, "
+                                + "it will be inflated on demand.", e);
+                        synchronized (ViewPool.this) {
+                            mUnsupported.put(layoutId, true);
+                        }
+                        return;
+                    }
+
+                    put(inflaterContext, layoutId, view);
+                }
+            }
+        });
+    }
+
+    /**
+     * Take a view for a layout from the pool or inflate it if there is
+     * no view available. Only the views pre-inflated with the context of
+     * the supplied inflater will be used.
+     *
+     * @param inflater to inflate the view if the pool is empty.
+     * @param layoutId The layout to be inflated.
+     * @param parent The parent to generate layout params for the view.
+     * The view will not be attached to it.
+     *
+     * @return The view for the supplied layout.
+     */
+    public View obtain(@NonNull LayoutInflater inflater, @LayoutRes int layoutId,
+                       @Nullable ViewGroup parent) {
+        View view = poll(inflater.getContext(), layoutId);
+
+        if (view == null) {
+            mMisses.incrementAndGet();
+            return inflater.inflate(layoutId, parent, false);
+        }
+
+        mHits.incrementAndGet();
+        if (parent instanceof AbsListView && view.getLayoutParams() != null
+                && !(view.getLayoutParams() instanceof AbsListView.LayoutParams)) {
+            view.setLayoutParams(new AbsListView.LayoutParams(
+                    view.getLayoutParams().width, view.getLayoutParams().height));
+        }
+
+        return view;
+    }
+
+    /**
+     * @return The no. of views taken from the pool.
+     */
+    public int getHitCount() {
+        return mHits.get();
+    }
+
+    /**
+     * @return The no. of views inflated on demand because the pool was
+     * empty.
+     */
+    public int getMissCount() {
+        return mMisses.get();
+    }
+
+    /**
+     * Reset the hit and miss counters.
+     */
+    public void resetCounters() {
+        mHits.set(0);
+        mMisses.set(0);
+    }
+
+    /**
+     * Remove all the views from the pool so that their contexts can be
+     * released.
+     */
+    public synchronized void clear() {
+        mViews.clear();
+    }
+
+    /**
+     * Remove the views inflated with a context from the pool so that it
+     * can be released. Views will not be pooled for this context anymore,
+     * call it only when the context has been destroyed.
+     *
+     * @param context The context whose views to be removed.
+     */
+    public synchronized void clear(@NonNull Context context) {
+        Context poolContext = getPoolContext(context);
+
+        mCleared.add(poolContext);
+        mViews.remove(poolContext);
+    }
+
+    /**
+     * @param context The context to be checked.
+     *
+     * @return <code>true</code> if the context has been cleared.
+     */
+    private synchronized boolean isCleared(Context context) {
+        return mCleared.contains(context);
+    }
+
+    /**
+     * @param context The context to be used.
+     *
+     * @return The context of the inflaters created from the supplied
+     * context, views are pooled for it.
+     */
+    private static Context getPoolContext(@NonNull Context context) {
+        return LayoutInflater.from(context).getContext();
+    }
+
+    /**
+     * @param layoutId The layout to be checked.
+     *
+     * @return <code>true</code> if the layout can be inflated on a
+     * background thread.
+     */
+    private synchronized boolean isSupported(@LayoutRes int layoutId) {
+        return !mUnsupported.get(layoutId);
+    }
+
+    /**
+     * @param context The context of the views.
+     * @param layoutId The layout to be checked.
+     *
+     * @return The no. of views available for the layout.
+     */
+    private synchronized int getSize(Context context, @LayoutRes int layoutId) {
+        List<View> views = getViews(context, layoutId, false);
+        return views != null ? views.size() : 0;
+    }
+
+    /**
+     * Add a view to the pool.
+     *
+     * @param context The context of the view.
+     * @param layoutId The layout of the view.
+     * @param view The view to be added.
+     */
+    private synchronized void put(Context context, @LayoutRes int layoutId,
+                                  @NonNull View view) {
+        // Views inflated while the context was being cleared.
+        if (mCleared.contains(context)) {
+            return;
+        }
+
+        getViews(context, layoutId, true).add(view);
+    }
+
+    /**
+     * Remove a view from the pool which has been inflated with the
+     * supplied context.
+     *
+     * @param context The context of the view.
+     * @param layoutId The layout of the view.
+     *
+     * @return The view or <code>null</code> if there is no view available.
+     */
+    private synchronized @Nullable View poll(Context context, @LayoutRes int layoutId) {
+        List<View> views = getViews(context, layoutId, false);
+        return views != null && !views.isEmpty() ? views.remove(views.size() - 1) : null;
+    }
+
+    /**
+     * @param context The context of the views.
+     * @param layoutId The layout of the views.
+     * @param create <code>true</code> to create the list if it does not exist.
+     *
+     * @return The pooled views for the layout of a context.
+     */
+    private @Nullable List<View> getViews(Context context, @LayoutRes int layoutId,
+                                          boolean create) {
+        SparseArray<List<View>> layouts = mViews.get(context);
+        if (layouts == null) {
+            if (!create) {
+                return null;
+            }
+
+            layouts = new SparseArray<List<View>>();
+            mViews.put(context, layouts);
+        }
+
+        List<View> views = layouts.get(layoutId);
+        if (views == null && create) {
+            views = new ArrayList<View>();
+            layouts.put(layoutId, views);
+        }
+
+        return views;
+    }
+}
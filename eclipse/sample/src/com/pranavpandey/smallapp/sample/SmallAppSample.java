@@ -242,7 +242,7 @@ public class SmallAppSample extends SmallApp {
                 .setTitle(R.string.sas_share)
                 .setNegativeButton(android.R.string.cancel, null);
 
-        new OpenIntentDialog(getContext(), intent, alertDialogBuilder, Type.LIST)
+        new OpenIntentDialog(SmallAppSample.this, intent, alertDialogBuilder, Type.LIST)
                 .setRememberSelection(true)
                 .setActivityOpenListener(new OnActivityOpenListener() {
                     public void onActivityOpen(ComponentName componentName) {